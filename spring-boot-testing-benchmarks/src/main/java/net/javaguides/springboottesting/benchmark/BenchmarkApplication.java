@@ -0,0 +1,75 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import net.javaguides.springboottesting.SpringBootTestingApplication;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.service.EmployeeService;
+
+/**
+ * Boots SpringBootTestingApplication against a private in-memory H2 database, without a web server or on a random port.
+ * The schema comes from the H2 flyway migrations. The settings are passed as command line arguments so they win over
+ * application.properties.
+ */
+final class BenchmarkApplication {
+
+	private BenchmarkApplication() {
+	}
+
+	static ConfigurableApplicationContext start(String... extraArgs) {
+		return startOn(newDatabaseUrl(), extraArgs);
+	}
+
+	//a database outlives the contexts started on it, e.g. to boot again against an existing schema
+	static ConfigurableApplicationContext startOn(String databaseUrl, String... extraArgs) {
+		return start(WebApplicationType.NONE, databaseUrl, List.of(extraArgs));
+	}
+
+	static String newDatabaseUrl() {
+		return "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+	}
+
+	static ConfigurableApplicationContext startWeb(String... extraArgs) {
+		List<String> args = new ArrayList<>();
+		args.add("--server.port=0");
+		args.addAll(List.of(extraArgs));
+		return start(WebApplicationType.SERVLET, newDatabaseUrl(), args);
+	}
+
+	private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String databaseUrl,
+			List<String> extraArgs) {
+		List<String> args = new ArrayList<>(databaseArgs(databaseUrl));
+		args.addAll(extraArgs);
+
+		return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+				.web(webApplicationType)
+				.bannerMode(Banner.Mode.OFF)
+				.run(args.toArray(new String[0]));
+	}
+
+	//also passed to the application processes EmployeeStartupTest launches
+	static List<String> databaseArgs(String databaseUrl) {
+		return List.of(
+				"--spring.datasource.url=" + databaseUrl,
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN");
+	}
+
+	static List<Employee> seed(EmployeeService employeeService, int rows) {
+		List<Employee> employees = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			employees.add(new Employee("First" + i, "Last" + i, "employee" + i + "@gmail.com"));
+		}
+		return employeeService.saveEmployees(employees);
+	}
+}
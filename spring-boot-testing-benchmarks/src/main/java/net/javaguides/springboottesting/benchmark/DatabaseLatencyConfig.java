@@ -0,0 +1,55 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * loadtest.db-latency-ms: every statement waits this long before it reaches the in-memory H2 database, standing in
+ * for the network round trip to a real one. Without it request threads are never blocked on I/O long enough for the
+ * execution mode (employee.execution.mode) to make a difference.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "loadtest.db-latency-ms")
+class DatabaseLatencyConfig {
+
+	@Bean
+	static BeanPostProcessor databaseLatencyPostProcessor(@Value("${loadtest.db-latency-ms}") long latencyMs) {
+		QueryExecutionListener latency = new QueryExecutionListener() {
+
+			@Override
+			public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(latencyMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			}
+		};
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource) || latencyMs <= 0)
+					return bean;
+				return ProxyDataSourceBuilder.create(beanName, (DataSource) bean).listener(latency).build();
+			}
+		};
+	}
+}
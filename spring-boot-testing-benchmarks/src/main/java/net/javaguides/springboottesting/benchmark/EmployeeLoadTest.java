@@ -0,0 +1,401 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.service.EmployeeService;
+
+/**
+ * Open loop HTTP load test for EmployeeController.
+ * <p>
+ * Boots the application on a random port against an embedded H2 database, seeds it and sends a weighted mix of
+ * requests at a fixed arrival rate from a pool of client threads. Response time is measured from the moment a request
+ * was scheduled to start, not from when a client thread got round to sending it, so a stalled server is charged for
+ * every request that queued up behind the stall (coordinated omission). Service time, measured from the actual send,
+ * is kept next to it.
+ * <p>
+ * Every option is a Spring property, so application settings are varied the same way, e.g.
+ * {@code --loadtest.rate=500 --spring.cache.type=none --spring.datasource.hikari.maximum-pool-size=5}.
+ * Results go to target/loadtest/{name}: one .hgrm percentile distribution per endpoint, an .hlog histogram log
+ * holding all of them and summary.json.
+ */
+public final class EmployeeLoadTest {
+
+	enum Endpoint {
+		GET("GET /api/employees/{id}"),
+		LIST("GET /api/employees"),
+		CREATE("POST /api/employees"),
+		CREATE_ASYNC("POST /api/employees?async=true"),
+		UPDATE("PUT /api/employees/{id}"),
+		DELETE("DELETE /api/employees/{id}");
+
+		private final String description;
+
+		Endpoint(String description) {
+			this.description = description;
+		}
+
+		String key() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	static final class EndpointStats {
+
+		//microseconds, auto resized so a long stall is recorded instead of failing the run
+		final Histogram responseTime = new ConcurrentHistogram(3);
+
+		final Histogram serviceTime = new ConcurrentHistogram(3);
+
+		final LongAdder errors = new LongAdder();
+
+		void record(long intendedNanos, long sentNanos, long doneNanos, int status) {
+			responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(doneNanos - intendedNanos));
+			serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(doneNanos - sentNanos));
+			if (status < 200 || status >= 300)
+				errors.increment();
+		}
+	}
+
+	private static final String BASE_PATH = "/api/employees";
+
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+	private final AtomicLong createdCount = new AtomicLong();
+
+	//ids created during the run, DELETE only removes those so GET and PUT always find the seeded rows
+	private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+	private final URI baseUri;
+
+	private final List<Employee> seeded;
+
+	private final Map<Endpoint, Integer> mix;
+
+	private final int totalWeight;
+
+	private final int pageSize;
+
+	private EmployeeLoadTest(URI baseUri, List<Employee> seeded, Map<Endpoint, Integer> mix, int pageSize) {
+		this.baseUri = baseUri;
+		this.seeded = seeded;
+		this.mix = mix;
+		this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+		this.pageSize = pageSize;
+	}
+
+	public static void main(String[] args) throws Exception {
+		try (ConfigurableApplicationContext context = BenchmarkApplication.startWeb(args)) {
+			Environment env = context.getEnvironment();
+			int rows = env.getProperty("loadtest.rows", Integer.class, 10_000);
+			int rate = env.getProperty("loadtest.rate", Integer.class, 200);
+			int durationSeconds = env.getProperty("loadtest.duration", Integer.class, 30);
+			int warmupSeconds = env.getProperty("loadtest.warmup", Integer.class, 10);
+			int threads = env.getProperty("loadtest.threads", Integer.class, 64);
+			int pageSize = env.getProperty("loadtest.page-size", Integer.class, 50);
+			String mixSpec = env.getProperty("loadtest.mix", "get:50,list:20,create:10,update:10,delete:10");
+			String name = env.getProperty("loadtest.name", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+			Path outputDir = Paths.get(env.getProperty("loadtest.output-dir", "target/loadtest"), name);
+
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			List<Employee> seeded = BenchmarkApplication.seed(context.getBean(EmployeeService.class), rows);
+			EmployeeLoadTest loadTest = new EmployeeLoadTest(URI.create("http://localhost:" + port), seeded, parseMix(mixSpec), pageSize);
+
+			if (warmupSeconds > 0) {
+				System.out.printf("warming up for %ds at %d req/s%n", warmupSeconds, rate);
+				loadTest.drive(rate, warmupSeconds, threads);
+			}
+			System.out.printf("measuring for %ds at %d req/s with %d client threads%n", durationSeconds, rate, threads);
+			long startedAt = System.currentTimeMillis();
+			Run run = loadTest.drive(rate, durationSeconds, threads);
+
+			Map<String, Object> config = new LinkedHashMap<>();
+			config.put("rows", rows);
+			config.put("rate", rate);
+			config.put("durationSeconds", durationSeconds);
+			config.put("warmupSeconds", warmupSeconds);
+			config.put("threads", threads);
+			config.put("pageSize", pageSize);
+			config.put("mix", mixSpec);
+			config.put("args", List.of(args));
+			loadTest.write(outputDir, name, startedAt, config, run);
+			loadTest.print(run);
+			System.out.println("results written to " + outputDir.toAbsolutePath());
+		}
+	}
+
+	static Map<Endpoint, Integer> parseMix(String mixSpec) {
+		Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+		for (String entry : mixSpec.split(",")) {
+			String[] parts = entry.trim().split(":");
+			if (parts.length != 2)
+				throw new IllegalArgumentException("Invalid loadtest.mix entry, expected endpoint:weight: " + entry);
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight > 0)
+				mix.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+		}
+		if (mix.isEmpty())
+			throw new IllegalArgumentException("loadtest.mix has no endpoint with a positive weight: " + mixSpec);
+		return mix;
+	}
+
+	static final class Run {
+
+		final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+		long elapsedNanos;
+
+		long requests() {
+			return stats.values().stream().mapToLong(s -> s.responseTime.getTotalCount()).sum();
+		}
+	}
+
+	//request i is due at start + i * interval whatever happened to the ones before it, a request that starts
+	//late because every client thread was busy has the wait counted in its response time
+	private Run drive(int rate, int durationSeconds, int threads) throws InterruptedException {
+		Run run = new Run();
+		mix.keySet().forEach(endpoint -> run.stats.put(endpoint, new EndpointStats()));
+
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long totalRequests = (long) rate * durationSeconds;
+		AtomicLong ticket = new AtomicLong();
+		long start = System.nanoTime();
+
+		ExecutorService clients = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "loadtest-client");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < threads; i++) {
+			clients.execute(() -> {
+				long request;
+				while ((request = ticket.getAndIncrement()) < totalRequests) {
+					long intended = start + request * intervalNanos;
+					for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+						LockSupport.parkNanos(wait);
+					}
+					Endpoint endpoint = nextEndpoint();
+					long sent = System.nanoTime();
+					int status = send(endpoint);
+					run.stats.get(endpoint).record(intended, sent, System.nanoTime(), status);
+				}
+			});
+		}
+		clients.shutdown();
+		if (!clients.awaitTermination(durationSeconds + 300L, TimeUnit.SECONDS)) {
+			clients.shutdownNow();
+			throw new IllegalStateException("Load test did not finish within 5 minutes of its planned duration");
+		}
+		run.elapsedNanos = System.nanoTime() - start;
+		return run;
+	}
+
+	private Endpoint nextEndpoint() {
+		int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+			pick -= entry.getValue();
+			if (pick < 0)
+				return entry.getKey();
+		}
+		throw new IllegalStateException("Weights changed while picking an endpoint");
+	}
+
+	//status -1 means the request failed before a response arrived, it is counted as an error
+	private int send(Endpoint endpoint) {
+		try {
+			switch (endpoint) {
+			case GET:
+				return send(HttpRequest.newBuilder(uri(BASE_PATH + "/" + randomSeeded().getId())).GET()).statusCode();
+			case LIST:
+				return send(HttpRequest.newBuilder(uri(BASE_PATH + "?size=" + pageSize)).GET()).statusCode();
+			case CREATE:
+				return create();
+			case CREATE_ASYNC:
+				return createAsync();
+			case UPDATE:
+				Employee employee = randomSeeded();
+				Map<String, Object> body = employeeBody(employee.getFirstName() + "-" + runId, employee.getLastName(), employee.getEmail());
+				return send(HttpRequest.newBuilder(uri(BASE_PATH + "/" + employee.getId())).header("Content-Type", "application/json").PUT(json(body))).statusCode();
+			case DELETE:
+				//nothing created yet, the 404 still exercises the delete path and shows up as an error
+				Long id = createdIds.poll();
+				return send(HttpRequest.newBuilder(uri(BASE_PATH + "/" + (id != null ? id : 0L))).DELETE()).statusCode();
+			default:
+				throw new IllegalStateException("Unknown endpoint " + endpoint);
+			}
+		} catch (IOException e) {
+			return -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+	}
+
+	private int create() throws IOException, InterruptedException {
+		long n = createdCount.incrementAndGet();
+		Map<String, Object> body = employeeBody("Load" + n, "Test", "load-" + runId + "-" + n + "@gmail.com");
+		HttpResponse<String> response = send(HttpRequest.newBuilder(uri(BASE_PATH)).header("Content-Type", "application/json").POST(json(body)));
+		if (response.statusCode() == 201)
+			createdIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+		return response.statusCode();
+	}
+
+	//only the 202 with the ticket is timed, the group commit behind it shows in the create queue meters
+	private int createAsync() throws IOException, InterruptedException {
+		long n = createdCount.incrementAndGet();
+		Map<String, Object> body = employeeBody("Load" + n, "Test", "load-" + runId + "-" + n + "@gmail.com");
+		return send(HttpRequest.newBuilder(uri(BASE_PATH + "?async=true")).header("Content-Type", "application/json").POST(json(body))).statusCode();
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return baseUri.resolve(path);
+	}
+
+	private Employee randomSeeded() {
+		return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+	}
+
+	private static Map<String, Object> employeeBody(String firstName, String lastName, String email) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("firstName", firstName);
+		body.put("lastName", lastName);
+		body.put("email", email);
+		return body;
+	}
+
+	private HttpRequest.BodyPublisher json(Object body) throws IOException {
+		return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+	}
+
+	private void write(Path outputDir, String name, long startedAt, Map<String, Object> config, Run run) throws IOException {
+		Files.createDirectories(outputDir);
+		long endedAt = startedAt + TimeUnit.NANOSECONDS.toMillis(run.elapsedNanos);
+
+		try (PrintStream log = new PrintStream(Files.newOutputStream(outputDir.resolve("latency.hlog")))) {
+			HistogramLogWriter writer = new HistogramLogWriter(log);
+			writer.outputLogFormatVersion();
+			writer.outputStartTime(startedAt);
+			writer.setBaseTime(startedAt);
+			writer.outputLegend();
+			for (Map.Entry<Endpoint, EndpointStats> entry : run.stats.entrySet()) {
+				writeTagged(writer, entry.getValue().responseTime, entry.getKey().key(), startedAt, endedAt);
+				writeTagged(writer, entry.getValue().serviceTime, entry.getKey().key() + "-service", startedAt, endedAt);
+			}
+		}
+
+		Map<String, Object> endpoints = new LinkedHashMap<>();
+		for (Map.Entry<Endpoint, EndpointStats> entry : run.stats.entrySet()) {
+			EndpointStats stats = entry.getValue();
+			try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(entry.getKey().key() + ".hgrm")))) {
+				stats.responseTime.outputPercentileDistribution(out, MICROS_PER_MILLI);
+			}
+			try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(entry.getKey().key() + "-service.hgrm")))) {
+				stats.serviceTime.outputPercentileDistribution(out, MICROS_PER_MILLI);
+			}
+
+			Map<String, Object> endpoint = new LinkedHashMap<>();
+			endpoint.put("endpoint", entry.getKey().description);
+			endpoint.put("requests", stats.responseTime.getTotalCount());
+			endpoint.put("errors", stats.errors.sum());
+			endpoint.put("throughput", throughput(stats.responseTime.getTotalCount(), run.elapsedNanos));
+			endpoint.put("responseTimeMs", percentiles(stats.responseTime));
+			endpoint.put("serviceTimeMs", percentiles(stats.serviceTime));
+			endpoints.put(entry.getKey().key(), endpoint);
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("name", name);
+		summary.put("startedAt", Instant.ofEpochMilli(startedAt).toString());
+		summary.put("config", config);
+		summary.put("requests", run.requests());
+		summary.put("errors", run.stats.values().stream().mapToLong(s -> s.errors.sum()).sum());
+		summary.put("throughput", throughput(run.requests(), run.elapsedNanos));
+		summary.put("endpoints", endpoints);
+		objectMapper.writeValue(outputDir.resolve("summary.json").toFile(), summary);
+	}
+
+	private static void writeTagged(HistogramLogWriter writer, Histogram histogram, String tag, long startedAt, long endedAt) {
+		Histogram copy = histogram.copy();
+		copy.setTag(tag);
+		copy.setStartTimeStamp(startedAt);
+		copy.setEndTimeStamp(endedAt);
+		writer.outputIntervalHistogram(copy);
+	}
+
+	private static Map<String, Object> percentiles(Histogram histogram) {
+		Map<String, Object> percentiles = new LinkedHashMap<>();
+		percentiles.put("mean", histogram.getMean() / MICROS_PER_MILLI);
+		percentiles.put("p50", histogram.getValueAtPercentile(50) / MICROS_PER_MILLI);
+		percentiles.put("p90", histogram.getValueAtPercentile(90) / MICROS_PER_MILLI);
+		percentiles.put("p99", histogram.getValueAtPercentile(99) / MICROS_PER_MILLI);
+		percentiles.put("p99.9", histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI);
+		percentiles.put("max", histogram.getMaxValue() / MICROS_PER_MILLI);
+		return percentiles;
+	}
+
+	private static double throughput(long requests, long elapsedNanos) {
+		return requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	private void print(Run run) {
+		System.out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Map.Entry<Endpoint, EndpointStats> entry : run.stats.entrySet()) {
+			EndpointStats stats = entry.getValue();
+			Histogram h = stats.responseTime;
+			System.out.printf("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().description, h.getTotalCount(), stats.errors.sum(),
+					throughput(h.getTotalCount(), run.elapsedNanos), h.getValueAtPercentile(50) / MICROS_PER_MILLI,
+					h.getValueAtPercentile(99) / MICROS_PER_MILLI, h.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+					h.getMaxValue() / MICROS_PER_MILLI);
+		}
+	}
+}
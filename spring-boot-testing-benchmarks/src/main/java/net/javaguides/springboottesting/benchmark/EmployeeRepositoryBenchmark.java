@@ -0,0 +1,129 @@
+package net.javaguides.springboottesting.benchmark;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.EmployeeService;
+
+/**
+ * The four first/last name lookups of EmployeeRepository against each other on an embedded H2 database, and the two
+ * ways of reading the whole table: managed read-only entities (streamAll) and a stateless session (scrollAll, what the
+ * export uses). streamAll is the query the export ran before, kept here only as the baseline.
+ * Run with the GC profiler to compare the allocation per row. nameIndex=false drops the (first_name, last_name) index
+ * of the V2 migration to show what the lookups cost without it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeRepositoryBenchmark {
+
+	@Param({ "10000" })
+	private int rows;
+
+	@Param({ "true", "false" })
+	private boolean nameIndex;
+
+	private ConfigurableApplicationContext context;
+
+	private EmployeeRepository employeeRepository;
+
+	private EntityManager entityManager;
+
+	private TransactionTemplate readOnlyTransaction;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = BenchmarkApplication.start();
+		employeeRepository = context.getBean(EmployeeRepository.class);
+		entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+		readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTransaction.setReadOnly(true);
+		if (!nameIndex) {
+			new JdbcTemplate(context.getBean(DataSource.class)).execute("drop index idx_employees_name");
+		}
+		BenchmarkApplication.seed(context.getBean(EmployeeService.class), rows);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	private int randomRow() {
+		return ThreadLocalRandom.current().nextInt(rows);
+	}
+
+	@Benchmark
+	public Employee findByJPQL() {
+		int row = randomRow();
+		return employeeRepository.findByJPQL("First" + row, "Last" + row);
+	}
+
+	@Benchmark
+	public Employee findByJPQLNamedParams() {
+		int row = randomRow();
+		return employeeRepository.findByJPQLNamedParams("First" + row, "Last" + row);
+	}
+
+	@Benchmark
+	public Employee findByNativeQuery() {
+		int row = randomRow();
+		return employeeRepository.findByNativeQuery("First" + row, "Last" + row);
+	}
+
+	@Benchmark
+	public Employee findByNativeQueryNamedParams() {
+		int row = randomRow();
+		return employeeRepository.findByNativeQueryNamedParams("First" + row, "Last" + row);
+	}
+
+	@Benchmark
+	public void streamAll(Blackhole blackhole) {
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<Employee> employees = entityManager.createQuery("select e from Employee e order by e.id", Employee.class)
+					.setHint(HINT_FETCH_SIZE, 1000)
+					.setHint(HINT_READONLY, true)
+					.getResultStream()) {
+				employees.forEach(blackhole::consume);
+			}
+		});
+	}
+
+	@Benchmark
+	public void scrollAll(Blackhole blackhole) {
+		readOnlyTransaction.executeWithoutResult(status -> employeeRepository.scrollAll(blackhole::consume));
+	}
+}
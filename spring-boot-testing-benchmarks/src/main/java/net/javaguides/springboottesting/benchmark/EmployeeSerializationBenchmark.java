@@ -0,0 +1,64 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.javaguides.springboottesting.model.Employee;
+
+/**
+ * Jackson serialization of Employee and List&lt;Employee&gt; with the ObjectMapper settings Spring Boot uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeSerializationBenchmark {
+
+	@Param({ "1", "50", "500", "10000" })
+	private int size;
+
+	private ObjectMapper objectMapper;
+
+	private Employee employee;
+
+	private List<Employee> employees;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		employee = new Employee(1L, "Ramesh", "Fadatare", "ramesh@gmail.com", 0L);
+		employees = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			employees.add(new Employee(i, "First" + i, "Last" + i, "employee" + i + "@gmail.com", 0L));
+		}
+	}
+
+	@Benchmark
+	public byte[] serializeEmployee() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(employee);
+	}
+
+	@Benchmark
+	public byte[] serializeEmployeeList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(employees);
+	}
+}
@@ -0,0 +1,118 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import net.javaguides.springboottesting.service.EmployeeService;
+
+/**
+ * EmployeeServiceImpl through its Spring proxy (transactions, caching) on an embedded H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+	@Param({ "10000" })
+	private int rows;
+
+	//caffeine = employee cache in front of getEmployeeById, none = every call goes to the database
+	@Param({ "caffeine", "none" })
+	private String cacheType;
+
+	private ConfigurableApplicationContext context;
+
+	private EmployeeService employeeService;
+
+	private long[] ids;
+
+	private String deepCursor;
+
+	private final AtomicLong created = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = BenchmarkApplication.start("--spring.cache.type=" + cacheType);
+		employeeService = context.getBean(EmployeeService.class);
+
+		List<Employee> employees = BenchmarkApplication.seed(employeeService, rows);
+		ids = employees.stream().mapToLong(Employee::getId).toArray();
+
+		//cursor of the second to last page, keyset reads should cost the same there as on page one
+		EmployeePage page = employeeService.getEmployees(null, 50);
+		String previous = null;
+		while (page.getNextCursor() != null) {
+			previous = page.getNextCursor();
+			page = employeeService.getEmployees(previous, 50);
+		}
+		deepCursor = previous;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	private long randomId() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+
+	@Benchmark
+	public Object getEmployeeById() {
+		return employeeService.getEmployeeById(randomId());
+	}
+
+	@Benchmark
+	public EmployeePage getEmployeesFirstPage() {
+		return employeeService.getEmployees(null, 50);
+	}
+
+	@Benchmark
+	public EmployeePage getEmployeesDeepPage() {
+		return employeeService.getEmployees(deepCursor, 50);
+	}
+
+	@Benchmark
+	public List<Employee> getAllEmployees() {
+		return employeeService.getAllEmployees();
+	}
+
+	@Benchmark
+	public void exportEmployees(Blackhole blackhole) {
+		employeeService.exportEmployees(blackhole::consume);
+	}
+
+	@Benchmark
+	public Employee saveEmployee() {
+		long n = created.incrementAndGet();
+		return employeeService.saveEmployee(new Employee("New" + n, "Employee", "new" + n + "@gmail.com"));
+	}
+
+	@Benchmark
+	public boolean patchEmployee() {
+		return employeeService.patchEmployee(randomId(), Employee.builder().firstName("Patched").build());
+	}
+}
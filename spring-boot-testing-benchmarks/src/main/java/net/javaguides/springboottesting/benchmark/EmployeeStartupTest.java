@@ -0,0 +1,247 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import net.javaguides.springboottesting.SpringBootTestingApplication;
+
+/**
+ * Cold start of the application as its own process, the way an autoscaler sees it.
+ * <p>
+ * Every run launches a new JVM against a private in-memory H2 database and polls GET /api/employees until it is
+ * answered. Time to first request is measured from just before the process is launched, so JVM startup is included.
+ * The resident set size of the process is read right after that first response (Linux only).
+ * <p>
+ * Variants: default (the profile-less setup), fast-startup (lazy beans, deferred JPA bootstrap) and
+ * fast-startup-cds, which first records an AppCDS archive in a training run of its own and then starts from it
+ * (needs a JDK 13+ runtime). Options are --startup.runs, --startup.variants, --startup.timeout (seconds),
+ * --startup.name and --startup.output-dir; every other argument is passed on to the application.
+ * Results go to target/startup/{name}/summary.json, the application output to one log file per run.
+ */
+public final class EmployeeStartupTest {
+
+	private static final String OPTION_PREFIX = "startup.";
+
+	private static final String FAST_STARTUP = "--spring.profiles.active=fast-startup";
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(1))
+			.build();
+
+	private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	private final Path outputDir;
+
+	private final List<String> applicationArgs;
+
+	private final long timeoutNanos;
+
+	private EmployeeStartupTest(Path outputDir, List<String> applicationArgs, long timeoutNanos) {
+		this.outputDir = outputDir;
+		this.applicationArgs = applicationArgs;
+		this.timeoutNanos = timeoutNanos;
+	}
+
+	public static void main(String[] args) throws Exception {
+		SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+		int runs = Integer.parseInt(option(options, "runs", "5"));
+		List<String> variants = Arrays.asList(option(options, "variants", "default,fast-startup,fast-startup-cds").split(","));
+		int timeoutSeconds = Integer.parseInt(option(options, "timeout", "60"));
+		String name = option(options, "name", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+		Path outputDir = Paths.get(option(options, "output-dir", "target/startup"), name);
+		List<String> applicationArgs = Arrays.stream(args)
+				.filter(arg -> !arg.startsWith("--" + OPTION_PREFIX))
+				.collect(Collectors.toList());
+
+		Files.createDirectories(outputDir);
+		EmployeeStartupTest startupTest = new EmployeeStartupTest(outputDir, applicationArgs, TimeUnit.SECONDS.toNanos(timeoutSeconds));
+
+		Map<String, Object> results = new LinkedHashMap<>();
+		for (String variant : variants) {
+			List<String> jvmArgs = new ArrayList<>();
+			List<String> variantArgs = new ArrayList<>();
+			switch (variant.trim()) {
+			case "default":
+				break;
+			case "fast-startup":
+				variantArgs.add(FAST_STARTUP);
+				break;
+			case "fast-startup-cds":
+				if (Runtime.version().feature() < 13) {
+					System.out.println("skipping fast-startup-cds, dynamic AppCDS archives need a JDK 13+ runtime");
+					continue;
+				}
+				variantArgs.add(FAST_STARTUP);
+				Path archive = startupTest.train();
+				if (archive == null) {
+					System.out.println("skipping fast-startup-cds, the training run did not write an archive");
+					continue;
+				}
+				jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown startup.variants entry: " + variant);
+			}
+
+			List<Map<String, Object>> variantRuns = new ArrayList<>();
+			for (int run = 0; run < runs; run++) {
+				Map<String, Object> result = startupTest.measure(variant.trim() + "-" + run, jvmArgs, variantArgs);
+				System.out.printf("%-18s run %d: first request after %6d ms, rss %6s MB%n", variant.trim(), run,
+						result.get("timeToFirstRequestMs"), result.get("rssMb"));
+				variantRuns.add(result);
+			}
+			results.put(variant.trim(), summarize(variantRuns));
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("name", name);
+		summary.put("java", Runtime.version().toString());
+		summary.put("runs", runs);
+		summary.put("args", applicationArgs);
+		summary.put("variants", results);
+		startupTest.objectMapper.writeValue(outputDir.resolve("summary.json").toFile(), summary);
+		System.out.println("results written to " + outputDir.toAbsolutePath());
+	}
+
+	private static String option(SimpleCommandLinePropertySource options, String name, String defaultValue) {
+		String value = options.getProperty(OPTION_PREFIX + name);
+		return value != null ? value : defaultValue;
+	}
+
+	//the application runs until its training request was answered and exits, the JVM writes the archive on exit
+	private Path train() throws IOException, InterruptedException {
+		Path archive = outputDir.resolve("app-cds.jsa").toAbsolutePath();
+		Files.deleteIfExists(archive);
+		List<String> args = new ArrayList<>(List.of(FAST_STARTUP, "--employee.startup.training-run=true", "--server.port=0"));
+		Process process = launch("training", List.of("-XX:ArchiveClassesAtExit=" + archive), args);
+		if (!process.waitFor(timeoutNanos, TimeUnit.NANOSECONDS)) {
+			process.destroyForcibly().waitFor();
+			throw new IllegalStateException("Training run did not exit in time, see " + outputDir.resolve("training.log"));
+		}
+		return Files.exists(archive) ? archive : null;
+	}
+
+	private Map<String, Object> measure(String runName, List<String> jvmArgs, List<String> variantArgs)
+			throws IOException, InterruptedException {
+		int port = freePort();
+		List<String> args = new ArrayList<>(variantArgs);
+		args.add("--server.port=" + port);
+		HttpRequest firstRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees?size=1"))
+				.timeout(Duration.ofSeconds(5))
+				.build();
+
+		long launchedAt = System.nanoTime();
+		Process process = launch(runName, jvmArgs, args);
+		try {
+			while (true) {
+				if (!process.isAlive())
+					throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + outputDir.resolve(runName + ".log"));
+				if (System.nanoTime() - launchedAt > timeoutNanos)
+					throw new IllegalStateException("No response within the timeout, see " + outputDir.resolve(runName + ".log"));
+				try {
+					HttpResponse<Void> response = httpClient.send(firstRequest, HttpResponse.BodyHandlers.discarding());
+					if (response.statusCode() == 200)
+						break;
+				} catch (IOException e) {
+					//not listening yet
+				}
+				Thread.sleep(5);
+			}
+			long timeToFirstRequest = System.nanoTime() - launchedAt;
+
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("timeToFirstRequestMs", TimeUnit.NANOSECONDS.toMillis(timeToFirstRequest));
+			result.put("rssMb", rssMb(process.pid()));
+			return result;
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS))
+				process.destroyForcibly().waitFor();
+		}
+	}
+
+	//the jars of this classpath, the application jar included. directories are left out because CDS refuses to
+	//archive from a class path with a non-empty directory on it, and this module's classes are not needed
+	private Process launch(String runName, List<String> jvmArgs, List<String> args) throws IOException {
+		String classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+				.filter(entry -> entry.endsWith(".jar"))
+				.collect(Collectors.joining(File.pathSeparator));
+
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArgs);
+		command.add("-cp");
+		command.add(classpath);
+		command.add(SpringBootTestingApplication.class.getName());
+		command.addAll(BenchmarkApplication.databaseArgs("jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1"));
+		command.addAll(applicationArgs);
+		command.addAll(args);
+
+		return new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(outputDir.resolve(runName + ".log").toFile())
+				.start();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	//VmRSS of /proc/<pid>/status, null where there is no procfs
+	private static Long rssMb(long pid) throws IOException {
+		Path status = Paths.get("/proc", Long.toString(pid), "status");
+		if (!Files.exists(status))
+			return null;
+		for (String line : Files.readAllLines(status)) {
+			if (line.startsWith("VmRSS:"))
+				return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+		}
+		return null;
+	}
+
+	private static Map<String, Object> summarize(List<Map<String, Object>> runs) {
+		List<Long> times = runs.stream().map(run -> (Long) run.get("timeToFirstRequestMs")).sorted().collect(Collectors.toList());
+		List<Long> rss = runs.stream().map(run -> (Long) run.get("rssMb")).filter(value -> value != null).sorted()
+				.collect(Collectors.toList());
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("timeToFirstRequestMs", distribution(times));
+		if (!rss.isEmpty())
+			summary.put("rssMb", distribution(rss));
+		summary.put("runs", runs);
+		return summary;
+	}
+
+	private static Map<String, Object> distribution(List<Long> sorted) {
+		Map<String, Object> distribution = new LinkedHashMap<>();
+		distribution.put("min", sorted.get(0));
+		distribution.put("median", sorted.get(sorted.size() / 2));
+		distribution.put("max", sorted.get(sorted.size() - 1));
+		return distribution;
+	}
+}
@@ -0,0 +1,63 @@
+package net.javaguides.springboottesting.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time until the application context has started against an existing schema. migrate is the current setup: flyway
+ * finds nothing to apply and hibernate validates the mapping. update is the previous one: no flyway, and hibernate
+ * reads the schema metadata to work out what to alter. Every measured start is a cold context on the same database.
+ * H2 answers metadata queries from memory, so the gap is wider against MySQL's information_schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+	@Param({ "migrate", "update" })
+	private String schema;
+
+	private String databaseUrl;
+
+	private ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		databaseUrl = BenchmarkApplication.newDatabaseUrl();
+		//migrated once up front, so neither variant pays for creating the tables
+		BenchmarkApplication.startOn(databaseUrl).close();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public ConfigurableApplicationContext start() {
+		if ("update".equals(schema)) {
+			context = BenchmarkApplication.startOn(databaseUrl,
+					"--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=update");
+		} else {
+			context = BenchmarkApplication.startOn(databaseUrl);
+		}
+		return context;
+	}
+}
@@ -0,0 +1,12 @@
+package net.javaguides.springboottesting.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	//caffeine cache in front of EmployeeService#getEmployeeById, see spring.cache.* properties
+	public static final String EMPLOYEES_CACHE = "employees";
+}
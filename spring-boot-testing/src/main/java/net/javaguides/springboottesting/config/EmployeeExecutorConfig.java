@@ -0,0 +1,89 @@
+package net.javaguides.springboottesting.config;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Bulkhead for the database work of EmployeeController. Requests hand their service call to the employee executor and
+ * give the Tomcat thread back while it runs. At most employee.executor.pool-size calls run at a time and at most
+ * employee.executor.queue-capacity wait; the next one is rejected and answered with 503 instead of queueing behind a
+ * slow database. The pool size defaults to the size of the Hikari pool, more concurrent calls would only wait for a
+ * connection.
+ *
+ * The executor follows employee.execution.mode: a fixed pool of platform threads, or with virtual a virtual thread
+ * per call behind the same two limits (VirtualThreadBulkheadExecutor), so the repository calls run on virtual threads
+ * like the requests do.
+ *
+ * Every TaskDecorator bean is applied to the tasks, so thread bound state of the submitting request (e.g. the SQL
+ * statement count) follows the call onto the executor thread.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class EmployeeExecutorConfig {
+
+	public static final String EMPLOYEE_EXECUTOR = "employeeExecutor";
+
+	private static TaskDecorator composed(ObjectProvider<TaskDecorator> taskDecorators) {
+		List<TaskDecorator> decorators = taskDecorators.orderedStream().collect(Collectors.toList());
+		return task -> {
+			Runnable decorated = task;
+			for (TaskDecorator decorator : decorators)
+				decorated = decorator.decorate(decorated);
+			return decorated;
+		};
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(name = "employee.execution.mode", havingValue = "platform", matchIfMissing = true)
+	static class PlatformExecutorConfig {
+
+		@Bean(EMPLOYEE_EXECUTOR)
+		public ThreadPoolTaskExecutor employeeExecutor(ObjectProvider<TaskDecorator> taskDecorators,
+				@Value("${employee.executor.pool-size:10}") int poolSize,
+				@Value("${employee.executor.queue-capacity:100}") int queueCapacity) {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(poolSize);
+			executor.setMaxPoolSize(poolSize);
+			executor.setQueueCapacity(queueCapacity);
+			executor.setThreadNamePrefix("employee-db-");
+			executor.setTaskDecorator(composed(taskDecorators));
+			executor.setWaitForTasksToCompleteOnShutdown(true);
+			executor.setAwaitTerminationSeconds(30);
+			return executor;
+		}
+
+		//executor.active, executor.queued, executor.completed and executor.pool.* tagged name=employee
+		@Bean
+		public MeterBinder employeeExecutorMetrics(ThreadPoolTaskExecutor employeeExecutor) {
+			return registry -> new ExecutorServiceMetrics(employeeExecutor.getThreadPoolExecutor(), "employee", Tags.empty())
+					.bindTo(registry);
+		}
+	}
+
+	//the executor binds its own executor.active and executor.queued meters
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(name = "employee.execution.mode", havingValue = "virtual")
+	static class VirtualExecutorConfig {
+
+		@Bean(EMPLOYEE_EXECUTOR)
+		public VirtualThreadBulkheadExecutor employeeExecutor(ObjectProvider<TaskDecorator> taskDecorators,
+				@Value("${employee.executor.pool-size:10}") int poolSize,
+				@Value("${employee.executor.queue-capacity:100}") int queueCapacity) {
+			return new VirtualThreadBulkheadExecutor(VirtualThreadConfig.newVirtualThreadPerTaskExecutor(),
+					composed(taskDecorators), poolSize, queueCapacity);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package net.javaguides.springboottesting.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The fast-startup profile (application-fast-startup.properties) initializes beans lazily and bootstraps JPA in
+ * the background. Hibernate is built on the one AsyncTaskExecutor of the context, the employee executor, which has
+ * nothing else to do before the application is ready.
+ *
+ * Beans whose cost would otherwise move onto the first request stay eager: the flyway migration, and the entity
+ * manager factory so its deferred bootstrap overlaps the rest of the refresh. Everything else, controllers and
+ * services included, is created on first use.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(FastStartupConfig.class);
+
+	@Bean
+	public static LazyInitializationExcludeFilter eagerStartupBeans() {
+		return (beanName, beanDefinition, beanType) -> "entityManagerFactory".equals(beanName)
+				|| (beanType != null && FlywayMigrationInitializer.class.isAssignableFrom(beanType));
+	}
+
+	//training run for the AppCDS archive (see the fast-startup maven profile): once ready, sends one list request
+	//so the classes of a first request are loaded as well, then exits and the JVM writes the archive
+	@Bean
+	@ConditionalOnProperty(name = "employee.startup.training-run", havingValue = "true")
+	public ApplicationListener<ApplicationReadyEvent> trainingRun() {
+		return event -> {
+			ConfigurableApplicationContext context = event.getApplicationContext();
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees?size=1"))
+					.timeout(Duration.ofSeconds(30))
+					.build();
+			try {
+				HttpResponse<Void> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+				log.info("Training request answered with {}", response.statusCode());
+			} catch (IOException e) {
+				log.warn("Training request failed, the archive only covers startup", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			System.exit(SpringApplication.exit(context));
+		};
+	}
+}
@@ -0,0 +1,104 @@
+package net.javaguides.springboottesting.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.javaguides.springboottesting.datasource.ReadYourWritesInterceptor;
+import net.javaguides.springboottesting.datasource.ReplicaRouter;
+
+/**
+ * employee.datasource.replica-urls: read-only transactions (lists, export, lookups by id, email and name) are served
+ * by the replicas, writes by spring.datasource.url. Every replica gets its own Hikari pool with the
+ * spring.datasource.hikari.* settings and the primary's credentials, and is published in the hikaricp.* metrics as
+ * pool &lt;pool-name&gt;-replica-&lt;n&gt;.
+ *
+ * With employee.datasource.read-your-writes-ms above 0 a client's reads go to the primary for that long after
+ * each of its writes, see ReadYourWritesInterceptor.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employee.datasource.replica-urls")
+public class ReplicaRoutingConfig {
+
+	public static final String REPLICAS_UP_GAUGE = "employees.datasource.replicas.up";
+
+	@Bean
+	public ReplicaRouter replicaRouter(DataSourceProperties properties, Environment environment,
+			@Value("${employee.datasource.replica-urls}") List<String> replicaUrls,
+			@Value("${employee.datasource.replica-health-check-ms:5000}") long healthCheckMs) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = pool(properties, binder, properties.determineUrl(), null);
+		List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+		for (int i = 0; i < replicaUrls.size(); i++)
+			replicas.add(pool(properties, binder, replicaUrls.get(i), "-replica-" + (i + 1)));
+		return new ReplicaRouter(primary, replicas, healthCheckMs);
+	}
+
+	//the only DataSource bean, so JPA, the SQL monitoring proxy and the health check all see the routed one
+	@Bean
+	public DataSource dataSource(ReplicaRouter replicaRouter) {
+		return new LazyConnectionDataSourceProxy(replicaRouter.dataSource());
+	}
+
+	//calls EmployeeController hands to the employee executor keep the request's pin to the primary
+	@Bean
+	public TaskDecorator replicaRoutingTaskDecorator() {
+		return ReplicaRouter.taskDecorator();
+	}
+
+	@Bean
+	public WebMvcConfigurer readYourWritesConfigurer(@Value("${employee.datasource.read-your-writes-ms:0}") long windowMs) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				if (windowMs > 0)
+					registry.addInterceptor(new ReadYourWritesInterceptor(windowMs)).addPathPatterns("/api/employees", "/api/employees/**");
+			}
+		};
+	}
+
+	//the pools are not beans, so the hikaricp.* meters are wired here. the registry is handed in when it binds its
+	//meters, the router cannot ask for it: the registry binds this binder while it is created, a cycle either way
+	@Bean
+	public MeterBinder replicaRouterMetrics(ReplicaRouter replicaRouter) {
+		return registry -> {
+			Gauge.builder(REPLICAS_UP_GAUGE, replicaRouter, ReplicaRouter::getReplicasUp)
+					.description("Replicas that passed their last health check")
+					.register(registry);
+			for (DataSource dataSource : replicaRouter.getDataSources()) {
+				if (dataSource instanceof HikariDataSource)
+					((HikariDataSource) dataSource).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+			}
+		};
+	}
+
+	private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String url, String poolNameSuffix) {
+		HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		if (poolNameSuffix != null && pool.getPoolName() != null)
+			pool.setPoolName(pool.getPoolName() + poolNameSuffix);
+		return pool;
+	}
+}
@@ -0,0 +1,83 @@
+package net.javaguides.springboottesting.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.javaguides.springboottesting.metrics.RequestStatementInterceptor;
+import net.javaguides.springboottesting.metrics.SqlStatementCounter;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class SqlMonitoringConfig {
+
+	public static final String SLOW_QUERY_LOGGER = "employee.sql.slow";
+
+	@Bean
+	public static SqlStatementCounter sqlStatementCounter() {
+		return new SqlStatementCounter();
+	}
+
+	//every statement goes through datasource-proxy, slow ones are logged with their bind parameters.
+	//an already proxied DataSource is wrapped again, so other listeners (e.g. test statement budgets) keep working
+	@Bean
+	public static BeanPostProcessor dataSourceProxyPostProcessor(SqlStatementCounter sqlStatementCounter,
+			@Value("${employee.sql.slow-query-ms:200}") long slowQueryMs) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource))
+					return bean;
+
+				ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+						.listener(sqlStatementCounter);
+				if (slowQueryMs > 0)
+					builder.logSlowQueryBySlf4j(slowQueryMs, TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN, SLOW_QUERY_LOGGER);
+				return builder.build();
+			}
+		};
+	}
+
+	//statements of calls EmployeeController hands to the employee executor count for the request
+	@Bean
+	public TaskDecorator sqlStatementTaskDecorator(SqlStatementCounter sqlStatementCounter) {
+		return sqlStatementCounter.taskDecorator();
+	}
+
+	@Bean
+	public WebMvcConfigurer requestStatementConfigurer(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry,
+			@Value("${employee.sql.max-statements-per-request:10}") int maxStatements) {
+		RequestStatementInterceptor interceptor = new RequestStatementInterceptor(sqlStatementCounter, meterRegistry, maxStatements);
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(interceptor).addPathPatterns("/api/employees", "/api/employees/**");
+			}
+		};
+	}
+
+	//executions, rows and max/total time per HQL query from the hibernate statistics, tagged with the query
+	@Bean
+	public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+		return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory", Tags.empty());
+	}
+}
@@ -0,0 +1,136 @@
+package net.javaguides.springboottesting.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * The employee executor of employee.execution.mode=virtual: every call runs on a virtual thread of its own, and two
+ * semaphores stand in for the pool and the queue of the platform ThreadPoolTaskExecutor. At most poolSize calls run
+ * at a time, at most queueCapacity more wait for a permit, parked on their virtual thread; the next one is rejected,
+ * which EmployeeController answers with 503 as before.
+ *
+ * A call that is cancelled while it waits never runs, like a task removed from the platform executor's queue.
+ */
+public class VirtualThreadBulkheadExecutor implements AsyncTaskExecutor, MeterBinder, DisposableBean {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private final ExecutorService executor;
+
+	private final TaskDecorator taskDecorator;
+
+	private final int poolSize;
+
+	private final int capacity;
+
+	//calls accepted, running or waiting
+	private final Semaphore accepted;
+
+	//calls running
+	private final Semaphore running;
+
+	public VirtualThreadBulkheadExecutor(ExecutorService executor, TaskDecorator taskDecorator, int poolSize, int queueCapacity) {
+		this.executor = executor;
+		this.taskDecorator = taskDecorator;
+		this.poolSize = poolSize;
+		this.capacity = poolSize + queueCapacity;
+		this.accepted = new Semaphore(capacity);
+		this.running = new Semaphore(poolSize, true);
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		submit(task);
+	}
+
+	@Override
+	@Deprecated
+	public void execute(Runnable task, long startTimeout) {
+		submit(task);
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		start(future);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		start(future);
+		return future;
+	}
+
+	private void start(FutureTask<?> future) {
+		if (!accepted.tryAcquire())
+			throw new RejectedExecutionException("Employee executor is full, " + capacity + " calls accepted");
+
+		Runnable call = taskDecorator.decorate(future);
+		try {
+			executor.execute(() -> {
+				try {
+					running.acquire();
+				} catch (InterruptedException e) {
+					//only the shutdown interrupts, after its timeout
+					future.cancel(false);
+					accepted.release();
+					return;
+				}
+				try {
+					//a no-op once the caller cancelled it
+					call.run();
+				} finally {
+					running.release();
+					accepted.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			accepted.release();
+			throw e;
+		}
+	}
+
+	public int getActiveCount() {
+		return poolSize - running.availablePermits();
+	}
+
+	public int getQueuedCount() {
+		return Math.max(0, capacity - accepted.availablePermits() - getActiveCount());
+	}
+
+	//the active and queued meters of ExecutorServiceMetrics, so dashboards work in both modes
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("executor.active", this, VirtualThreadBulkheadExecutor::getActiveCount)
+				.tag("name", "employee")
+				.description("The approximate number of threads that are actively executing tasks")
+				.register(registry);
+		Gauge.builder("executor.queued", this, VirtualThreadBulkheadExecutor::getQueuedCount)
+				.tag("name", "employee")
+				.description("The approximate number of tasks that are queued for execution")
+				.register(registry);
+	}
+
+	//calls already accepted finish before the datasource is closed
+	@Override
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+			executor.shutdownNow();
+	}
+}
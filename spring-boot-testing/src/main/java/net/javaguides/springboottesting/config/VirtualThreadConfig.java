@@ -0,0 +1,42 @@
+package net.javaguides.springboottesting.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * employee.execution.mode=virtual: Tomcat runs every request on its own virtual thread instead of the
+ * server.tomcat.threads.max pool, and EmployeeExecutorConfig hands the repository calls to a virtual thread each
+ * (VirtualThreadBulkheadExecutor), so a request waiting on JDBC no longer holds a platform thread. Open requests are
+ * then bounded by server.tomcat.max-connections, concurrent database calls by the employee.executor.* bulkhead and
+ * connections by the Hikari pool (spring.datasource.hikari.maximum-pool-size), which is sized on its own.
+ *
+ * Needs a Java 21 runtime. The MySQL driver still blocks inside synchronized blocks, which pins the carrier thread
+ * for the duration of the call; -Djdk.tracePinnedThreads=short shows where.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "employee.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	//the build targets java 11, so the java 21 factory is looked up when the mode is switched on
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("employee.execution.mode=virtual needs a Java 21 runtime, this is " + Runtime.version(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create the virtual thread executor", e);
+		}
+	}
+}
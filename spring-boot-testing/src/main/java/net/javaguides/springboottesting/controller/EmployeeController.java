@@ -1,65 +1,327 @@
 package net.javaguides.springboottesting.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.springboottesting.config.EmployeeExecutorConfig;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ConcurrentUpdateException;
+import net.javaguides.springboottesting.exception.PreconditionFailedException;
+import net.javaguides.springboottesting.exception.ServiceUnavailableException;
 import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import net.javaguides.springboottesting.model.EmployeeTicket;
 import net.javaguides.springboottesting.service.EmployeeService;
+import net.javaguides.springboottesting.service.impl.EmployeeCreateQueue;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     private EmployeeService employeeService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    private EmployeeCreateQueue employeeCreateQueue;
+
+    private ObjectMapper objectMapper;
+
+    private AsyncTaskExecutor employeeExecutor;
+
+    private long timeoutMs;
+
+    private long batchTimeoutMs;
+
+    public EmployeeController(EmployeeService employeeService, EmployeeCreateQueue employeeCreateQueue,
+                              ObjectMapper objectMapper,
+                              @Qualifier(EmployeeExecutorConfig.EMPLOYEE_EXECUTOR) AsyncTaskExecutor employeeExecutor,
+                              @Value("${employee.executor.timeout-ms:5000}") long timeoutMs,
+                              @Value("${employee.executor.batch-timeout-ms:60000}") long batchTimeoutMs) {
         this.employeeService = employeeService;
+        this.employeeCreateQueue = employeeCreateQueue;
+        this.objectMapper = objectMapper;
+        this.employeeExecutor = employeeExecutor;
+        this.timeoutMs = timeoutMs;
+        this.batchTimeoutMs = batchTimeoutMs;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Employee createEmployee(@RequestBody Employee employee){
-        return employeeService.saveEmployee(employee);
+    public CompletableFuture<Employee> createEmployee(@RequestBody Employee employee){
+        requireNew(employee);
+        return async(timeoutMs, () -> employeeService.saveEmployee(employee));
     }
 
-    @GetMapping
-    public List<Employee> getAllEmployees(){
-        return employeeService.getAllEmployees();
+    // write-behind create: queued and answered with a ticket straight away, the employee is committed with a group
+    // of others shortly after (see EmployeeCreateQueue). only touches memory, so it stays on the container thread
+    @PostMapping(params = "async=true")
+    public ResponseEntity<EmployeeTicket> createEmployeeAsync(@RequestBody Employee employee){
+        EmployeeTicket ticket = employeeCreateQueue.enqueue(employee);
+        URI status = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/tickets/{ticket}")
+                .buildAndExpand(ticket.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(status).body(ticket);
     }
 
-    @GetMapping("{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long employeeId){
-        return employeeService.getEmployeeById(employeeId)
+    // outcome of an async create: PENDING, CREATED with the saved employee, or FAILED with the reason
+    @GetMapping("tickets/{ticket}")
+    public ResponseEntity<EmployeeTicket> getCreateTicket(@PathVariable("ticket") String ticketId){
+        return employeeCreateQueue.getTicket(ticketId)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @PostMapping("batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<List<Employee>> createEmployees(@RequestBody List<Employee> employees){
+        employees.forEach(EmployeeController::requireNew);
+        return async(batchTimeoutMs, () -> employeeService.saveEmployees(employees));
+    }
+
+    // keyset paginated, the next page (if any) is advertised through the Link header.
+    // the page carries an ETag, a matching If-None-Match is answered with 304 (see pageResponse)
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<Employee>>> getAllEmployees(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                             @RequestParam(value = "size", defaultValue = "50") int size){
+        // the current request is only bound to this thread, not to the executor
+        UriComponentsBuilder nextLink = ServletUriComponentsBuilder.fromCurrentRequest();
+
+        return async(timeoutMs, () -> employeeService.getEmployees(cursor, size)).thenApply(page -> pageResponse(page, nextLink));
+    }
+
+    // ranked matches on first name, last name and email, paged like the list through the Link header.
+    // served from memory on the container thread, there is no database call to bound
+    @GetMapping("search")
+    public ResponseEntity<List<Employee>> searchEmployees(@RequestParam("q") String query,
+                                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                                          @RequestParam(value = "size", defaultValue = "20") int size){
+        EmployeePage page = employeeService.searchEmployees(query, cursor, size);
+        return pageResponse(page, ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    // one JSON document per line, written while the rows are read so nothing is buffered per table.
+    // stays on the container thread, a stream of the whole table does not fit a per-request timeout
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportEmployees(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            // lines are ended by hand, without this jackson puts a space in front of every root value after the first
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            employeeService.exportEmployees(employee -> {
+                try {
+                    generator.writeObject(employee);
+                    generator.writeRaw('\n');
+                    // first row goes out straight away, then one flush per chunk of rows
+                    if (++written[0] % EXPORT_FLUSH_ROWS == 1) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // the ETag is the employee's version. for a GET answering 200 with an ETag, spring's HttpEntityMethodProcessor
+    // compares it with If-None-Match and on a match sends 304 without writing (or serializing) the body
+    @GetMapping("{id}")
+    public CompletableFuture<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") long employeeId){
+        return async(timeoutMs, () -> employeeService.getEmployeeById(employeeId)
+                .map(employee -> ResponseEntity.ok().eTag(etag(employee)).body(employee))
+                .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    // If-Match is checked against the version just read, and the update only applies to that same version,
+    // so a change that slips in between the two is answered with 412 as well
     @PutMapping("{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long employeeId,
-                                                   @RequestBody Employee employee){
-        return employeeService.getEmployeeById(employeeId)
+    public CompletableFuture<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") long employeeId,
+                                                                      @RequestBody Employee employee,
+                                                                      @RequestHeader HttpHeaders headers){
+        return async(timeoutMs, () -> employeeService.getEmployeeById(employeeId)
                 .map(savedEmployee -> {
 
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
+                    checkIfMatch(headers, savedEmployee);
+
+                    // copy instead of mutating, savedEmployee may be the instance held by the cache
+                    Employee changedEmployee = Employee.builder()
+                            .id(savedEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            .version(savedEmployee.getVersion())
+                            .build();
 
-                    Employee updatedEmployee = employeeService.updateEmployee(savedEmployee);
-                    return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
+                    // without a precondition the service retries a lost race on the newer version
+                    if (headers.getIfMatch().isEmpty()) {
+                        Employee updatedEmployee = employeeService.updateEmployee(changedEmployee);
+                        return ResponseEntity.ok().eTag(etag(updatedEmployee)).body(updatedEmployee);
+                    }
+
+                    Employee updatedEmployee;
+                    try {
+                        updatedEmployee = employeeService.updateEmployeeIfUnchanged(changedEmployee);
+                    } catch (ConcurrentUpdateException e) {
+                        throw new PreconditionFailedException("Employee " + employeeId + " has changed, ETag no longer matches", e);
+                    }
+                    return ResponseEntity.ok().eTag(etag(updatedEmployee)).body(updatedEmployee);
 
                 })
-                .orElseGet(() -> ResponseEntity.notFound().build());
+                .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    // only the fields present in the body are changed, nothing is read back
+    @PatchMapping("{id}")
+    public CompletableFuture<ResponseEntity<Void>> patchEmployee(@PathVariable("id") long employeeId,
+                                                                 @RequestBody Employee employee){
+        return async(timeoutMs, () -> {
+            if (employeeService.patchEmployee(employeeId, employee)) {
+                return ResponseEntity.noContent().<Void>build();
+            }
+            return ResponseEntity.notFound().<Void>build();
+        });
     }
 
+    // with an If-Match other than *, the employee is only deleted while it still has the matching version
     @DeleteMapping("{id}")
-    public ResponseEntity<String> deleteEmployee(@PathVariable("id") long employeeId){
+    public CompletableFuture<ResponseEntity<String>> deleteEmployee(@PathVariable("id") long employeeId,
+                                                                    @RequestHeader HttpHeaders headers){
+        return async(timeoutMs, () -> {
+
+            List<String> ifMatch = headers.getIfMatch();
+            if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+                if (!employeeService.deleteEmployee(employeeId)) {
+                    return ResponseEntity.notFound().<String>build();
+                }
+                return new ResponseEntity<String>("Employee deleted successfully!.", HttpStatus.OK);
+            }
+
+            Optional<Employee> savedEmployee = employeeService.getEmployeeById(employeeId);
+            if (savedEmployee.isEmpty()) {
+                return ResponseEntity.notFound().<String>build();
+            }
+            checkIfMatch(headers, savedEmployee.get());
+            if (!employeeService.deleteEmployee(employeeId, savedEmployee.get().getVersion())) {
+                throw new PreconditionFailedException("Employee " + employeeId + " has changed, ETag no longer matches");
+            }
+
+            return new ResponseEntity<String>("Employee deleted successfully!.", HttpStatus.OK);
+
+        });
+    }
+
+    @DeleteMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<String>> deleteEmployees(@RequestParam("ids") List<Long> employeeIds){
+        return async(timeoutMs, () -> {
+
+            int deleted = employeeService.deleteEmployees(employeeIds);
+
+            return new ResponseEntity<String>(deleted + " employees deleted successfully!.", HttpStatus.OK);
 
-        employeeService.deleteEmployee(employeeId);
+        });
+    }
+
+    // GET only, so If-None-Match is answered by spring like for a single employee
+    private static ResponseEntity<List<Employee>> pageResponse(EmployeePage page, UriComponentsBuilder nextLink) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(pageETag(page));
+        if (page.getNextCursor() != null) {
+            String next = nextLink.replaceQueryParam("cursor", page.getNextCursor()).toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getEmployees());
+    }
+
+    // an entity with an id is merged by save/saveAll, not inserted: a create body naming an existing id would
+    // overwrite that row past the version check and the cache. ids and versions are assigned by the database
+    private static void requireNew(Employee employee) {
+        if (employee.getId() != 0 || employee.getVersion() != 0) {
+            throw new BadRequestException("A new employee must not have an id or version, got id " + employee.getId()
+                    + " and version " + employee.getVersion());
+        }
+    }
+
+    private static String etag(Employee employee) {
+        return "\"" + employee.getVersion() + "\"";
+    }
+
+    // strong ETag of a page from the ids and versions of its rows and whether a next page follows. a table wide
+    // max(version) would not do, versions count per row, so an update to an older row can leave the max unchanged
+    private static String pageETag(EmployeePage page) {
+        List<Employee> employees = page.getEmployees();
+        ByteBuffer rows = ByteBuffer.allocate(employees.size() * 2 * Long.BYTES + 1);
+        for (Employee employee : employees) {
+            rows.putLong(employee.getId()).putLong(employee.getVersion());
+        }
+        rows.put((byte) (page.getNextCursor() != null ? 1 : 0));
+        return "\"" + employees.size() + "-" + DigestUtils.md5DigestAsHex(rows.array()) + "\"";
+    }
+
+    // strong comparison as If-Match requires it, a weak W/ tag never matches. no header means no precondition
+    private static void checkIfMatch(HttpHeaders headers, Employee savedEmployee) {
+        List<String> ifMatch = headers.getIfMatch();
+        String etag = etag(savedEmployee);
+        if (!ifMatch.isEmpty() && !ifMatch.contains("*") && !ifMatch.contains(etag)) {
+            throw new PreconditionFailedException("Employee " + savedEmployee.getId() + " has changed, current ETag is " + etag);
+        }
+    }
 
-        return new ResponseEntity<String>("Employee deleted successfully!.", HttpStatus.OK);
+    // runs the service call on the employee executor and frees the container thread meanwhile. a full queue is
+    // answered with 503 straight away, and so is a call that has not finished in time; if it is still
+    // queued by then it is dropped, a call already running is left to finish rather than interrupted mid-statement
+    private <T> CompletableFuture<T> async(long callTimeoutMs, Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = employeeExecutor.submit(() -> {
+                try {
+                    result.complete(call.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many employee requests in progress, try again later", e);
+        }
 
+        return result.orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS).handle((value, e) -> {
+            if (e instanceof TimeoutException) {
+                task.cancel(false);
+                throw new ServiceUnavailableException("Employee request did not complete within " + callTimeoutMs + " ms");
+            }
+            if (e != null) {
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            return value;
+        });
     }
 
 }
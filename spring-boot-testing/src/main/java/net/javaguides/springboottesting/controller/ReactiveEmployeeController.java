@@ -0,0 +1,111 @@
+package net.javaguides.springboottesting.controller;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.service.ReactiveEmployeeService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// same /api/employees contract as EmployeeController, served by WebFlux when the reactive profile is active
+@RestController
+@RequestMapping("/api/employees")
+@Profile("reactive")
+public class ReactiveEmployeeController {
+
+    private ReactiveEmployeeService employeeService;
+
+    public ReactiveEmployeeController(ReactiveEmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Employee> createEmployee(@RequestBody Employee employee){
+        return employeeService.saveEmployee(employee);
+    }
+
+    @PostMapping("batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Flux<Employee> createEmployees(@RequestBody List<Employee> employees){
+        return employeeService.saveEmployees(employees);
+    }
+
+    // keyset paginated, the next page (if any) is advertised through the Link header
+    @GetMapping
+    public Mono<ResponseEntity<List<Employee>>> getAllEmployees(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "size", defaultValue = "50") int size,
+                                                                ServerHttpRequest request){
+        return employeeService.getEmployees(cursor, size).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                String next = UriComponentsBuilder.fromHttpRequest(request)
+                        .replaceQueryParam("cursor", page.getNextCursor())
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.getEmployees());
+        });
+    }
+
+    // one JSON document per line, rows are read from the database as fast as the client takes them
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> exportEmployees(){
+        return employeeService.exportEmployees();
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") long employeeId){
+        return employeeService.getEmployeeById(employeeId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") long employeeId,
+                                                         @RequestBody Employee employee){
+        Employee changedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build();
+
+        return employeeService.updateEmployee(changedEmployee)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // only the fields present in the body are changed, nothing is read back
+    @PatchMapping("{id}")
+    public Mono<ResponseEntity<Void>> patchEmployee(@PathVariable("id") long employeeId,
+                                                    @RequestBody Employee employee){
+        return employeeService.patchEmployee(employeeId, employee)
+                .map(patched -> patched
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<String>> deleteEmployee(@PathVariable("id") long employeeId){
+        return employeeService.deleteEmployee(employeeId)
+                .map(deleted -> deleted
+                        ? new ResponseEntity<String>("Employee deleted successfully!.", HttpStatus.OK)
+                        : ResponseEntity.notFound().<String>build());
+    }
+
+    @DeleteMapping(params = "ids")
+    public Mono<ResponseEntity<String>> deleteEmployees(@RequestParam("ids") List<Long> employeeIds){
+        return employeeService.deleteEmployees(employeeIds)
+                .map(deleted -> new ResponseEntity<String>(deleted + " employees deleted successfully!.", HttpStatus.OK));
+    }
+
+}
@@ -0,0 +1,65 @@
+package net.javaguides.springboottesting.datasource;
+
+import java.util.Set;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Read-your-writes on top of ReplicaRouter. A write request leaves a cookie with its time, and reads of the same
+ * client within windowMs of it are pinned to the primary, so they see the write whatever the replica lag. Other
+ * clients keep reading from the replicas.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+	public static final String LAST_WRITE_COOKIE = "employee-last-write";
+
+	private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+	private final long windowMs;
+
+	public ReadYourWritesInterceptor(long windowMs) {
+		this.windowMs = windowMs;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		long now = System.currentTimeMillis();
+		if (!READ_METHODS.contains(request.getMethod())) {
+			//set before the handler runs, the response may already be committed afterwards
+			Cookie lastWrite = new Cookie(LAST_WRITE_COOKIE, Long.toString(now));
+			lastWrite.setPath(request.getContextPath() + "/");
+			lastWrite.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+			lastWrite.setHttpOnly(true);
+			response.addCookie(lastWrite);
+		} else if (now - lastWrite(request) < windowMs) {
+			ReplicaRouter.pinToPrimary();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ReplicaRouter.unpin();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		ReplicaRouter.unpin();
+	}
+
+	private static long lastWrite(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+		if (cookie == null)
+			return 0L;
+		try {
+			return Long.parseLong(cookie.getValue());
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package net.javaguides.springboottesting.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to one of the replicas, round robin, and everything else to the
+ * primary. Replicas are checked every healthCheckIntervalMs and a replica that fails a check, or fails to hand out a
+ * connection, is skipped until it passes again; with no replica up reads go to the primary.
+ *
+ * The transaction's read-only flag is only set once the transaction has begun, so {@link #dataSource()} has to be
+ * wrapped in a LazyConnectionDataSourceProxy that fetches the connection on the first statement.
+ */
+public class ReplicaRouter implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+	//reads of the current thread go to the primary, see ReadYourWritesInterceptor
+	private static final ThreadLocal<Boolean> primaryPinned = new ThreadLocal<>();
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final ScheduledExecutorService healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "employee-replica-health");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ReplicaRouter(DataSource primary, List<DataSource> replicas, long healthCheckIntervalMs) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toList());
+		if (healthCheckIntervalMs > 0)
+			healthCheck.scheduleWithFixedDelay(this::checkReplicas, healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	public static void pinToPrimary() {
+		primaryPinned.set(Boolean.TRUE);
+	}
+
+	public static void unpin() {
+		primaryPinned.remove();
+	}
+
+	//tasks read where the thread that submitted them would read
+	public static TaskDecorator taskDecorator() {
+		return task -> {
+			if (primaryPinned.get() == null)
+				return task;
+			return () -> {
+				pinToPrimary();
+				try {
+					task.run();
+				} finally {
+					unpin();
+				}
+			};
+		};
+	}
+
+	public DataSource dataSource() {
+		return new AbstractDataSource() {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				return ReplicaRouter.this.getConnection();
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				throw new SQLException("Per call credentials are not supported, the pools are configured up front");
+			}
+		};
+	}
+
+	//the primary, then the replicas
+	public List<DataSource> getDataSources() {
+		List<DataSource> dataSources = new ArrayList<>(replicas.size() + 1);
+		dataSources.add(primary);
+		replicas.forEach(replica -> dataSources.add(replica.dataSource));
+		return dataSources;
+	}
+
+	public int getReplicasUp() {
+		return (int) replicas.stream().filter(replica -> replica.up).count();
+	}
+
+	Connection getConnection() throws SQLException {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && primaryPinned.get() == null) {
+			Replica replica = nextReplicaUp();
+			if (replica != null) {
+				try {
+					return replica.dataSource.getConnection();
+				} catch (SQLException e) {
+					replica.markDown(e);
+				}
+			}
+		}
+		return primary.getConnection();
+	}
+
+	private Replica nextReplicaUp() {
+		int size = replicas.size();
+		int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if (replica.up)
+				return replica;
+		}
+		return null;
+	}
+
+	void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (connection.isValid(VALIDATION_TIMEOUT_SECONDS))
+					replica.markUp();
+				else
+					replica.markDown(null);
+			} catch (SQLException e) {
+				replica.markDown(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		healthCheck.shutdownNow();
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof Closeable)
+				((Closeable) replica.dataSource).close();
+		}
+		if (primary instanceof Closeable)
+			((Closeable) primary).close();
+	}
+
+	private static class Replica {
+
+		private final DataSource dataSource;
+
+		private volatile boolean up = true;
+
+		Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		void markUp() {
+			if (!up)
+				log.info("Replica {} is back, reads are routed to it again", dataSource);
+			up = true;
+		}
+
+		void markDown(SQLException cause) {
+			if (up)
+				log.warn("Replica {} is down, its reads go to the other replicas or the primary", dataSource, cause);
+			up = false;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package net.javaguides.springboottesting.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConcurrentUpdateException extends RuntimeException {
+
+	public ConcurrentUpdateException(String message) {
+		super(message);
+	}
+	
+	public ConcurrentUpdateException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
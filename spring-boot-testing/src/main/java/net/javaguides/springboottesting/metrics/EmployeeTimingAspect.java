@@ -0,0 +1,72 @@
+package net.javaguides.springboottesting.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every EmployeeServiceImpl method and every EmployeeRepository query as employees.service and
+ * employees.repository, tagged with method, outcome (SUCCESS/ERROR) and exception (simple class name or none).
+ * Both timers publish percentile histograms so latency quantiles can be aggregated across instances from the
+ * Prometheus scrape.
+ *
+ * Runs before the transaction and cache interceptors, so the service timing includes commit and flush and also
+ * counts cache hits. Stream returning queries are only timed until the stream is opened, reading it is part of
+ * the calling service method.
+ */
+@Aspect
+@Component
+//off in the native executable, see application-native.properties
+@ConditionalOnProperty(name = "employee.metrics.timing.enabled", matchIfMissing = true)
+//just ahead of the transaction and cache interceptors (LOWEST_PRECEDENCE)
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class EmployeeTimingAspect {
+
+	public static final String SERVICE_TIMER = "employees.service";
+
+	public static final String REPOSITORY_TIMER = "employees.repository";
+
+	private static final String NO_EXCEPTION = "none";
+
+	private final MeterRegistry meterRegistry;
+
+	public EmployeeTimingAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("execution(public * net.javaguides.springboottesting.service.impl.EmployeeServiceImpl.*(..))")
+	public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(SERVICE_TIMER, joinPoint);
+	}
+
+	//matches the Spring Data proxy, so inherited CRUD methods and the custom fragment are timed too
+	@Around("within(net.javaguides.springboottesting.repository.EmployeeRepository+)")
+	public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(REPOSITORY_TIMER, joinPoint);
+	}
+
+	private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = NO_EXCEPTION;
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder(name)
+					.tag("method", joinPoint.getSignature().getName())
+					.tag("outcome", NO_EXCEPTION.equals(exception) ? "SUCCESS" : "ERROR")
+					.tag("exception", exception)
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+	}
+}
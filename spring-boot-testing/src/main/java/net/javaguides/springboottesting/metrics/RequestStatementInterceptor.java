@@ -0,0 +1,75 @@
+package net.javaguides.springboottesting.metrics;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the SQL statements each request runs and records them as the employees.http.statements summary.
+ * Warns when a request runs more than maxStatements statements, or runs the same statement more than once.
+ * Asynchronous requests keep their count in a request attribute between the initial and the async dispatch.
+ */
+public class RequestStatementInterceptor implements AsyncHandlerInterceptor {
+
+	private static final Logger log = LoggerFactory.getLogger(RequestStatementInterceptor.class);
+
+	public static final String STATEMENTS_SUMMARY = "employees.http.statements";
+
+	private static final String STATEMENTS_ATTRIBUTE = RequestStatementInterceptor.class.getName() + ".statements";
+
+	private final SqlStatementCounter sqlStatementCounter;
+
+	private final MeterRegistry meterRegistry;
+
+	private final int maxStatements;
+
+	public RequestStatementInterceptor(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry, int maxStatements) {
+		this.sqlStatementCounter = sqlStatementCounter;
+		this.meterRegistry = meterRegistry;
+		this.maxStatements = maxStatements;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() == DispatcherType.ASYNC)
+			sqlStatementCounter.resume((SqlStatementCounter.Statements) request.getAttribute(STATEMENTS_ATTRIBUTE));
+		else
+			sqlStatementCounter.start();
+		return true;
+	}
+
+	//the handler returned a future, its statements are counted on the executor until the async dispatch
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		request.setAttribute(STATEMENTS_ATTRIBUTE, sqlStatementCounter.stop());
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		SqlStatementCounter.Statements statements = sqlStatementCounter.stop();
+		if (statements == null)
+			return;
+
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+		DistributionSummary.builder(STATEMENTS_SUMMARY)
+				.tag("method", request.getMethod())
+				.tag("uri", uri)
+				.register(meterRegistry)
+				.record(statements.getTotal());
+
+		if (statements.getTotal() > maxStatements)
+			log.warn("{} {} ran {} SQL statements, more than {}: {}", request.getMethod(), uri, statements.getTotal(),
+					maxStatements, statements.getByType());
+		statements.getRepeated().forEach((sql, count) ->
+				log.warn("{} {} ran the same SQL statement {} times: {}", request.getMethod(), uri, count, sql));
+	}
+}
@@ -0,0 +1,114 @@
+package net.javaguides.springboottesting.metrics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.core.task.TaskDecorator;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/**
+ * datasource-proxy listener that counts the statements run on the current thread between start() and stop().
+ * A JDBC batch counts once, it is a single round trip however many rows it carries. The count can be handed to
+ * another thread with stop() and resume(), or follow a task through taskDecorator().
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+
+	private final ThreadLocal<Statements> current = new ThreadLocal<>();
+
+	public void start() {
+		current.set(new Statements());
+	}
+
+	//null when start() was not called on this thread
+	public Statements stop() {
+		Statements statements = current.get();
+		current.remove();
+		return statements;
+	}
+
+	//continues a count taken off another thread with stop()
+	public void resume(Statements statements) {
+		if (statements == null)
+			current.remove();
+		else
+			current.set(statements);
+	}
+
+	//tasks count into the statements of the thread that submitted them
+	public TaskDecorator taskDecorator() {
+		return task -> {
+			Statements statements = current.get();
+			if (statements == null)
+				return task;
+			return () -> {
+				current.set(statements);
+				try {
+					task.run();
+				} finally {
+					current.remove();
+				}
+			};
+		};
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Statements statements = current.get();
+		if (statements != null)
+			queryInfoList.forEach(queryInfo -> statements.add(queryInfo.getQuery()));
+	}
+
+	//concurrent: a task that outlived its request timeout can still count while the request reads the statements
+	public static class Statements {
+
+		private final Map<String, LongAdder> bySql = new ConcurrentHashMap<>();
+
+		private final Map<QueryType, LongAdder> byType = new ConcurrentHashMap<>();
+
+		private final LongAdder total = new LongAdder();
+
+		void add(String sql) {
+			bySql.computeIfAbsent(sql, key -> new LongAdder()).increment();
+			byType.computeIfAbsent(QueryUtils.getQueryType(sql), key -> new LongAdder()).increment();
+			total.increment();
+		}
+
+		public int getTotal() {
+			return total.intValue();
+		}
+
+		public int getCount(QueryType type) {
+			LongAdder count = byType.get(type);
+			return count == null ? 0 : count.intValue();
+		}
+
+		//a snapshot, in QueryType order
+		public Map<QueryType, Integer> getByType() {
+			Map<QueryType, Integer> snapshot = new EnumMap<>(QueryType.class);
+			byType.forEach((type, count) -> snapshot.put(type, count.intValue()));
+			return snapshot;
+		}
+
+		//identical statements run more than once, the usual sign of an N+1 or a read before merge
+		public Map<String, Integer> getRepeated() {
+			return bySql.entrySet().stream()
+					.filter(entry -> entry.getValue().intValue() > 1)
+					.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().intValue(), (a, b) -> a,
+							LinkedHashMap::new));
+		}
+	}
+}
@@ -1,11 +1,21 @@
 package net.javaguides.springboottesting.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,10 +29,23 @@ import lombok.Setter;
 @NoArgsConstructor
 @Entity
 @Builder //-> we need to use setter/ cunstructors if we don't use this annotation
-@Table(name="employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employee-entity")
+@NaturalIdCache(region = "employee-natural-id")
+//the schema comes from the flyway migrations (db/migration), constraint and index are repeated here so the mapping shows them
+@Table(name="employees", uniqueConstraints = @UniqueConstraint(name = Employee.EMAIL_CONSTRAINT, columnNames = "email"),
+		indexes = @Index(name = "idx_employees_name", columnList = "first_name, last_name"))
 public class Employee {
+	
+	public static final String EMAIL_CONSTRAINT = "uk_employees_email";
+	
+	public static final int ID_ALLOCATION_SIZE = 50;
+	
+	//pooled sequence (a table on MySQL) instead of IDENTITY so Hibernate can batch inserts,
+	//ids are handed out 50 at a time without a round-trip per row
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+	@SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = ID_ALLOCATION_SIZE)
 	private long id;
 	@Column(name="first_name", nullable = false)
 	private String firstName;
@@ -30,9 +53,17 @@ public class Employee {
 	@Column(name = "last_name", nullable = false)
 	private String lastName;
 	
+	//mutable natural id: lookups by email go through the natural-id cache (see EmployeeRepositoryCustom)
+	@NaturalId(mutable = true)
 	@Column(nullable = false)
 	private String email;
 	
+	//bumped on every update (patchById and the reactive writes bump it in their statements), the ETag of the
+	//employee resource. a stale version on merge fails the update instead of overwriting a newer row
+	@Version
+	@Column(nullable = false)
+	private long version;
+	
 	public Employee(String firstName, String lastName, String email) {
 		super();
 		this.firstName = firstName;
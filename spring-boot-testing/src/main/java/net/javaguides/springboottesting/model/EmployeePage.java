@@ -0,0 +1,19 @@
+package net.javaguides.springboottesting.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One keyset page of employees ordered by id. {@code nextCursor} is the opaque
+ * token for the following page, or {@code null} when this is the last one.
+ */
+@Getter
+@AllArgsConstructor
+public class EmployeePage {
+
+	private List<Employee> employees;
+
+	private String nextCursor;
+}
@@ -0,0 +1,38 @@
+package net.javaguides.springboottesting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of an asynchronous create (POST /api/employees?async=true). {@code employee} is set once the
+ * employee is created, {@code error} when it could not be. Instances are immutable, a ticket moves on by being
+ * replaced.
+ */
+@Getter
+@AllArgsConstructor
+public class EmployeeTicket {
+
+	public enum Status {
+		PENDING, CREATED, FAILED
+	}
+
+	private String id;
+
+	private Status status;
+
+	private Employee employee;
+
+	private String error;
+
+	public static EmployeeTicket pending(String id) {
+		return new EmployeeTicket(id, Status.PENDING, null, null);
+	}
+
+	public EmployeeTicket created(Employee savedEmployee) {
+		return new EmployeeTicket(id, Status.CREATED, savedEmployee, null);
+	}
+
+	public EmployeeTicket failed(String reason) {
+		return new EmployeeTicket(id, Status.FAILED, null, reason);
+	}
+}
@@ -1,28 +1,86 @@
 package net.javaguides.springboottesting.repository;
 
-import java.util.Optional;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import net.javaguides.springboottesting.model.Employee;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long>{
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
 
-	Optional<Employee> findByEmail(String email);
+	//set based duplicate check for bulk inserts, one select per chunk instead of one per employee
+	@Query("select e.email from Employee e where e.email in :emails")
+	List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+	
+	//keyset page: rows after the given id in id order, pageable only supplies the limit.
+	//loaded read-only (no dirty-checking snapshot) and without flushing the persistence context first
+	@QueryHints({ @QueryHint(name = HINT_READONLY, value = "true"),
+			@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL") })
+	@Query("select e from Employee e where e.id > :afterId order by e.id")
+	List<Employee> findPageAfterId(@Param("afterId") long afterId, Pageable pageable);
+	
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+	@Query("select e.email from Employee e")
+	Stream<String> streamAllEmails();
+	
+	//partial update in one statement without loading the entity, null leaves a column unchanged.
+	//bulk updates skip @Version, so the version is bumped here
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("update Employee e set e.firstName = coalesce(:firstName, e.firstName), "
+			+ "e.lastName = coalesce(:lastName, e.lastName), e.email = coalesce(:email, e.email), "
+			+ "e.version = e.version + 1 where e.id = :id")
+	int patchById(@Param("id") long id, @Param("firstName") String firstName,
+			@Param("lastName") String lastName, @Param("email") String email);
+	
+	//delete without loading the entity first (deleteById does a findById and then a remove)
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("delete from Employee e where e.id = :id")
+	int removeById(@Param("id") long id);
+	
+	//conditional delete (If-Match), 0 when the employee is gone or has another version by now
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("delete from Employee e where e.id = :id and e.version = :version")
+	int removeByIdAndVersion(@Param("id") long id, @Param("version") long version);
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("delete from Employee e where e.id in :ids")
+	int removeByIdIn(@Param("ids") Collection<Long> ids);
+	
+	//the name lookups are read-only transactions so they can be served by a replica (see ReplicaRoutingConfig)
 	
 	//jpql custom query with index parameters
+	@Transactional(readOnly = true)
 	@Query("select e from Employee e where e.firstName = ?1 and e.lastName = ?2")
 	Employee findByJPQL(String firstName, String lastName);
 	
 	//jpql custom query with named parameters
+	@Transactional(readOnly = true)
 	@Query("select e from Employee e where e.firstName =:firstName and e.lastName =:lastName")
 	Employee findByJPQLNamedParams(@Param("firstName")String firstName, @Param("lastName")String lastName);
 
+	@Transactional(readOnly = true)
 	@Query(value = "select * from employees e where e.first_name =?1 and e.last_name =?2", nativeQuery=true)
 	Employee findByNativeQuery(String firstName, String lastName);
 	
+	@Transactional(readOnly = true)
 	@Query(value = "select * from employees e where e.first_name =:firstName and e.last_name =:lastName", nativeQuery=true)
 	Employee findByNativeQueryNamedParams(@Param("firstName")String firstName, @Param("lastName")String lastName);
 }
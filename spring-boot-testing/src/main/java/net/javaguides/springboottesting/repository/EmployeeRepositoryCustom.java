@@ -0,0 +1,16 @@
+package net.javaguides.springboottesting.repository;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import net.javaguides.springboottesting.model.Employee;
+
+public interface EmployeeRepositoryCustom {
+
+	//resolved through the hibernate natural-id cache instead of a derived query
+	Optional<Employee> findByEmail(String email);
+	
+	//full table in id order through a StatelessSession on the current transaction's connection: rows are handed over
+	//as plain objects, nothing is added to the persistence context, snapshotted or put in the second-level cache
+	void scrollAll(Consumer<Employee> consumer);
+}
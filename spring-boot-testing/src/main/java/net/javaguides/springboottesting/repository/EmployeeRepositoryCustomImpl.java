@@ -0,0 +1,62 @@
+package net.javaguides.springboottesting.repository;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.javaguides.springboottesting.model.Employee;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+	//rows per round trip, MySQL only honours it with useCursorFetch=true
+	static final int SCROLL_FETCH_SIZE = 1000;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	//custom fragments do not inherit the read-only transaction of SimpleJpaRepository
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Employee> findByEmail(String email) {
+		return entityManager.unwrap(Session.class)
+				.bySimpleNaturalId(Employee.class)
+				.loadOptional(email);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void scrollAll(Consumer<Employee> consumer) {
+		Session session = entityManager.unwrap(Session.class);
+		//the stateless session reads over the same connection, so pending changes have to be written first
+		//just like an auto flush would do it for a query
+		if (session.getHibernateFlushMode() != FlushMode.MANUAL)
+			session.flush();
+
+		session.doWork(connection -> {
+			StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(connection);
+			try {
+				ScrollableResults rows = statelessSession.createQuery("select e from Employee e order by e.id", Employee.class)
+						.setFetchSize(SCROLL_FETCH_SIZE)
+						.setReadOnly(true)
+						.scroll(ScrollMode.FORWARD_ONLY);
+				try {
+					while (rows.next())
+						consumer.accept((Employee) rows.get(0));
+				} finally {
+					rows.close();
+				}
+			} finally {
+				statelessSession.close();
+			}
+		});
+	}
+}
@@ -0,0 +1,211 @@
+package net.javaguides.springboottesting.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import net.javaguides.springboottesting.model.Employee;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of EmployeeRepository over R2DBC, for the reactive profile. Works on the table the
+ * flyway migrations create and takes its ids from the same pooled employees_seq, so both stacks can write to
+ * one database: a value v fetched from the sequence reserves the ids v-49..v, the same block Hibernate would use.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveEmployeeRepository {
+
+	private static final String COLUMNS = "id, first_name, last_name, email";
+
+	//inserts leave the version to its column default
+	private static final String SELECT_COLUMNS = COLUMNS + ", version";
+
+	private final DatabaseClient databaseClient;
+
+	private final TransactionalOperator transactionalOperator;
+
+	//hibernate emulates the sequence with a table on MySQL
+	private final boolean sequenceTable;
+
+	//rest of the last fetched id block
+	private final Queue<Long> ids = new ConcurrentLinkedQueue<>();
+
+	public ReactiveEmployeeRepository(ConnectionFactory connectionFactory, ReactiveTransactionManager transactionManager) {
+		this.databaseClient = DatabaseClient.create(connectionFactory);
+		this.transactionalOperator = TransactionalOperator.create(transactionManager);
+		this.sequenceTable = connectionFactory.getMetadata().getName().toLowerCase(Locale.ROOT).contains("mysql");
+	}
+
+	public Mono<Employee> findById(long id) {
+		return databaseClient.sql("select " + SELECT_COLUMNS + " from employees where id = :id")
+				.bind("id", id)
+				.map(ReactiveEmployeeRepository::toEmployee)
+				.one();
+	}
+
+	public Flux<String> findExistingEmails(Collection<String> emails) {
+		return databaseClient.sql("select email from employees where email in (:emails)")
+				.bind("emails", emails)
+				.map(row -> row.get("email", String.class))
+				.all();
+	}
+
+	//keyset page: rows after the given id in id order
+	public Flux<Employee> findPageAfterId(long afterId, int limit) {
+		return databaseClient.sql("select " + SELECT_COLUMNS + " from employees where id > :afterId order by id limit :limit")
+				.bind("afterId", afterId)
+				.bind("limit", limit)
+				.map(ReactiveEmployeeRepository::toEmployee)
+				.all();
+	}
+
+	//full table in id order, rows are requested from the driver as the subscriber consumes them
+	public Flux<Employee> streamAll() {
+		return databaseClient.sql("select " + SELECT_COLUMNS + " from employees order by id")
+				.map(ReactiveEmployeeRepository::toEmployee)
+				.all();
+	}
+
+	public Mono<Employee> insert(Employee employee) {
+		return nextId().flatMap(id -> databaseClient.sql("insert into employees (" + COLUMNS + ") values (:id, :firstName, :lastName, :email)")
+				.bind("id", id)
+				.bind("firstName", employee.getFirstName())
+				.bind("lastName", employee.getLastName())
+				.bind("email", employee.getEmail())
+				.fetch().rowsUpdated()
+				.thenReturn(withId(employee, id)));
+	}
+
+	//one multi-row insert in one transaction, ids are taken before the transaction starts like hibernate does
+	public Flux<Employee> insertAll(List<Employee> employees) {
+		if (employees.isEmpty())
+			return Flux.empty();
+		return Flux.fromIterable(employees)
+				.concatMap(employee -> nextId().map(id -> withId(employee, id)))
+				.collectList()
+				.flatMapMany(withIds -> {
+					StringBuilder sql = new StringBuilder("insert into employees (" + COLUMNS + ") values ");
+					for (int i = 0; i < withIds.size(); i++) {
+						sql.append(i == 0 ? "" : ", ").append("(:id").append(i).append(", :firstName").append(i)
+								.append(", :lastName").append(i).append(", :email").append(i).append(')');
+					}
+					DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(sql.toString());
+					for (int i = 0; i < withIds.size(); i++) {
+						Employee employee = withIds.get(i);
+						insert = insert.bind("id" + i, employee.getId())
+								.bind("firstName" + i, employee.getFirstName())
+								.bind("lastName" + i, employee.getLastName())
+								.bind("email" + i, employee.getEmail());
+					}
+					return insert.fetch().rowsUpdated()
+							.as(transactionalOperator::transactional)
+							.thenMany(Flux.fromIterable(withIds));
+				});
+	}
+
+	//writes bump the version like hibernate does for the servlet stack, so its ETags stay valid next to this one
+	public Mono<Integer> update(Employee employee) {
+		return databaseClient.sql("update employees set first_name = :firstName, last_name = :lastName, email = :email, "
+				+ "version = version + 1 where id = :id")
+				.bind("firstName", employee.getFirstName())
+				.bind("lastName", employee.getLastName())
+				.bind("email", employee.getEmail())
+				.bind("id", employee.getId())
+				.fetch().rowsUpdated();
+	}
+
+	//partial update in one statement, null leaves a column unchanged
+	public Mono<Integer> patchById(long id, String firstName, String lastName, String email) {
+		DatabaseClient.GenericExecuteSpec patch = databaseClient.sql("update employees set "
+				+ "first_name = coalesce(:firstName, first_name), last_name = coalesce(:lastName, last_name), "
+				+ "email = coalesce(:email, email), version = version + 1 where id = :id")
+				.bind("id", id);
+		patch = bindNullable(patch, "firstName", firstName);
+		patch = bindNullable(patch, "lastName", lastName);
+		patch = bindNullable(patch, "email", email);
+		return patch.fetch().rowsUpdated();
+	}
+
+	public Mono<Integer> removeById(long id) {
+		return databaseClient.sql("delete from employees where id = :id")
+				.bind("id", id)
+				.fetch().rowsUpdated();
+	}
+
+	public Mono<Integer> removeByIdIn(Collection<Long> ids) {
+		return databaseClient.sql("delete from employees where id in (:ids)")
+				.bind("ids", ids)
+				.fetch().rowsUpdated();
+	}
+
+	private Mono<Long> nextId() {
+		return Mono.defer(() -> {
+			Long id = ids.poll();
+			if (id != null)
+				return Mono.just(id);
+			return fetchIdBlock().map(hi -> {
+				for (long next = hi - Employee.ID_ALLOCATION_SIZE + 2; next <= hi; next++)
+					ids.add(next);
+				return hi - Employee.ID_ALLOCATION_SIZE + 1;
+			});
+		});
+	}
+
+	//the first value of a fresh sequence is its initial value 1, which does not reserve a full block
+	private Mono<Long> fetchIdBlock() {
+		return fetchSequenceValue()
+				.flatMap(value -> value < Employee.ID_ALLOCATION_SIZE ? fetchSequenceValue() : Mono.just(value));
+	}
+
+	private Mono<Long> fetchSequenceValue() {
+		if (!sequenceTable) {
+			return databaseClient.sql("select next value for employees_seq")
+					.map(row -> row.get(0, Long.class))
+					.one();
+		}
+		return databaseClient.sql("select next_val from employees_seq for update")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.flatMap(value -> databaseClient.sql("update employees_seq set next_val = :next where next_val = :value")
+						.bind("next", value + Employee.ID_ALLOCATION_SIZE)
+						.bind("value", value)
+						.fetch().rowsUpdated()
+						.thenReturn(value))
+				.as(transactionalOperator::transactional);
+	}
+
+	private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+		return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+	}
+
+	private static Employee withId(Employee employee, long id) {
+		return Employee.builder()
+				.id(id)
+				.firstName(employee.getFirstName())
+				.lastName(employee.getLastName())
+				.email(employee.getEmail())
+				.build();
+	}
+
+	private static Employee toEmployee(Row row) {
+		return Employee.builder()
+				.id(row.get("id", Long.class))
+				.firstName(row.get("first_name", String.class))
+				.lastName(row.get("last_name", String.class))
+				.email(row.get("email", String.class))
+				.version(row.get("version", Long.class))
+				.build();
+	}
+}
@@ -1,14 +1,26 @@
 package net.javaguides.springboottesting.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
 
 public interface EmployeeService {
 	Employee saveEmployee(Employee employee);
+	List<Employee> saveEmployees(List<Employee> employees);
+	List<Employee> saveEmployeeGroup(List<Employee> employees);
 	List<Employee> getAllEmployees();
+	EmployeePage getEmployees(String cursor, int size);
+	EmployeePage searchEmployees(String query, String cursor, int size);
+	void exportEmployees(Consumer<Employee> consumer);
 	Optional<Employee> getEmployeeById(long id);
 	Employee updateEmployee(Employee updatedEmployee);
-	void deleteEmployee(long id);
+	Employee updateEmployeeIfUnchanged(Employee updatedEmployee);
+	boolean patchEmployee(long id, Employee changes);
+	boolean deleteEmployee(long id);
+	boolean deleteEmployee(long id, long version);
+	int deleteEmployees(Collection<Long> ids);
 }
@@ -0,0 +1,21 @@
+package net.javaguides.springboottesting.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmployeeService {
+	Mono<Employee> saveEmployee(Employee employee);
+	Flux<Employee> saveEmployees(List<Employee> employees);
+	Mono<EmployeePage> getEmployees(String cursor, int size);
+	Flux<Employee> exportEmployees();
+	Mono<Employee> getEmployeeById(long id);
+	Mono<Employee> updateEmployee(Employee updatedEmployee);
+	Mono<Boolean> patchEmployee(long id, Employee changes);
+	Mono<Boolean> deleteEmployee(long id);
+	Mono<Integer> deleteEmployees(Collection<Long> ids);
+}
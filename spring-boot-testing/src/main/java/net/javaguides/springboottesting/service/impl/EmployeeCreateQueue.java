@@ -0,0 +1,238 @@
+package net.javaguides.springboottesting.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ResourceAlreadyExistsException;
+import net.javaguides.springboottesting.exception.ServiceUnavailableException;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeeTicket;
+import net.javaguides.springboottesting.service.EmployeeService;
+
+/**
+ * Write-behind creates (POST /api/employees?async=true). Employees are queued in memory and answered with a
+ * ticket straight away. A single writer thread takes them off the queue in groups and commits each group in one
+ * transaction through EmployeeService#saveEmployeeGroup. A group closes at group-size employees, or max-delay-ms
+ * after its first one arrived, whichever comes first.
+ *
+ * A group that fails as a whole, e.g. an email that a synchronous create took in the meantime, is written again
+ * one employee at a time through EmployeeService#saveEmployee, so every ticket gets its own outcome.
+ *
+ * The queue is bounded and lives in this instance only: a full queue rejects further creates with 503, and
+ * employees still queued when the process dies are lost. On a regular shutdown the queue is drained first.
+ * Tickets are kept for ticket-ttl after their last change, and at most max-tickets of them.
+ */
+@Component
+@Profile("!reactive")
+public class EmployeeCreateQueue implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(EmployeeCreateQueue.class);
+
+	private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+	private final EmployeeService employeeService;
+
+	private final BlockingQueue<Entry> queue;
+
+	private final int groupSize;
+
+	private final long maxDelayNanos;
+
+	private final Cache<String, EmployeeTicket> tickets;
+
+	private final Thread writer;
+
+	private volatile boolean running = true;
+
+	private final Counter created;
+
+	private final Counter failed;
+
+	private final DistributionSummary groups;
+
+	public EmployeeCreateQueue(EmployeeService employeeService, MeterRegistry meterRegistry,
+			@Value("${employee.create-queue.capacity:10000}") int capacity,
+			@Value("${employee.create-queue.group-size:500}") int groupSize,
+			@Value("${employee.create-queue.max-delay-ms:50}") long maxDelayMs,
+			@Value("${employee.create-queue.ticket-ttl:10m}") Duration ticketTtl,
+			@Value("${employee.create-queue.max-tickets:1000000}") long maxTickets) {
+		this.employeeService = employeeService;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.groupSize = Math.max(1, groupSize);
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+		//oldest tickets go first once max-tickets is reached, so it should stay well above the queue capacity
+		this.tickets = Caffeine.newBuilder()
+				.expireAfterWrite(ticketTtl)
+				.maximumSize(maxTickets)
+				.build();
+
+		Gauge.builder("employees.create.queue.size", queue, BlockingQueue::size)
+				.description("Employees waiting to be written behind")
+				.register(meterRegistry);
+		this.created = rowCounter(meterRegistry, "created");
+		this.failed = rowCounter(meterRegistry, "failed");
+		this.groups = DistributionSummary.builder("employees.create.queue.groups")
+				.description("Employees taken off the queue per write-behind group")
+				.register(meterRegistry);
+
+		this.writer = new Thread(this::write, "employee-create-queue");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("employees.create.queue.rows")
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	//the ticket is registered before the employee is queued, so the writer always finds it
+	public EmployeeTicket enqueue(Employee employee) {
+		if (!running)
+			throw new ServiceUnavailableException("Employee create queue is shutting down");
+
+		EmployeeTicket ticket = EmployeeTicket.pending(UUID.randomUUID().toString());
+		tickets.put(ticket.getId(), ticket);
+		if (!queue.offer(new Entry(ticket, employee))) {
+			tickets.invalidate(ticket.getId());
+			throw new ServiceUnavailableException("Employee create queue is full, try again later");
+		}
+		return ticket;
+	}
+
+	public Optional<EmployeeTicket> getTicket(String ticketId) {
+		return Optional.ofNullable(tickets.getIfPresent(ticketId));
+	}
+
+	private void write() {
+		List<Entry> group = new ArrayList<>(groupSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				group.add(first);
+
+				long deadline = System.nanoTime() + maxDelayNanos;
+				while (group.size() < groupSize) {
+					//whatever is queued already, then wait for more until the group is due
+					if (queue.drainTo(group, groupSize - group.size()) > 0)
+						continue;
+					long remaining = deadline - System.nanoTime();
+					Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+					if (next == null)
+						break;
+					group.add(next);
+				}
+				commit(group);
+			} catch (InterruptedException e) {
+				//only destroy interrupts, after its timeout. what is left in the queue is lost
+				log.warn("Employee create queue stopped with {} employees not written", queue.size() + group.size());
+				return;
+			} catch (RuntimeException e) {
+				log.error("Employee create queue failed to write a group of {}", group.size(), e);
+				group.forEach(entry -> finish(entry, null, "Employee could not be saved"));
+			} finally {
+				group.clear();
+			}
+		}
+	}
+
+	private void commit(List<Entry> group) {
+		groups.record(group.size());
+		//copies: persist assigns ids to what it is given even when the transaction then rolls back, the one by one
+		//fallback has to start from the employees as they were posted
+		List<Employee> employees = new ArrayList<>(group.size());
+		group.forEach(entry -> employees.add(copy(entry.employee)));
+
+		List<Employee> savedEmployees;
+		try {
+			savedEmployees = employeeService.saveEmployeeGroup(employees);
+		} catch (RuntimeException e) {
+			log.debug("Group of {} employees failed, writing them one by one", group.size(), e);
+			group.forEach(this::commitOne);
+			return;
+		}
+
+		for (int i = 0; i < group.size(); i++) {
+			Entry entry = group.get(i);
+			Employee savedEmployee = savedEmployees.get(i);
+			finish(entry, savedEmployee, savedEmployee == null
+					? "Employee already exist with given email: " + entry.employee.getEmail() : null);
+		}
+	}
+
+	private void commitOne(Entry entry) {
+		try {
+			finish(entry, employeeService.saveEmployee(copy(entry.employee)), null);
+		} catch (ResourceAlreadyExistsException | BadRequestException e) {
+			finish(entry, null, e.getMessage());
+		} catch (RuntimeException e) {
+			log.warn("Employee {} could not be saved", entry.employee.getEmail(), e);
+			finish(entry, null, "Employee could not be saved");
+		}
+	}
+
+	private void finish(Entry entry, Employee savedEmployee, String error) {
+		if (savedEmployee != null) {
+			tickets.put(entry.ticket.getId(), entry.ticket.created(savedEmployee));
+			created.increment();
+		} else {
+			tickets.put(entry.ticket.getId(), entry.ticket.failed(error));
+			failed.increment();
+		}
+	}
+
+	//a create has no id or version, an id sent by the client would turn the insert into a merge of that row
+	private static Employee copy(Employee employee) {
+		return Employee.builder()
+				.firstName(employee.getFirstName())
+				.lastName(employee.getLastName())
+				.email(employee.getEmail())
+				.build();
+	}
+
+	//stops taking creates and gives the writer time to drain the queue, before the datasource goes away
+	@Override
+	public void destroy() throws InterruptedException {
+		running = false;
+		writer.join(SHUTDOWN_TIMEOUT_MS);
+		if (writer.isAlive()) {
+			writer.interrupt();
+			writer.join(SHUTDOWN_TIMEOUT_MS);
+		}
+	}
+
+	private static final class Entry {
+
+		private final EmployeeTicket ticket;
+
+		private final Employee employee;
+
+		private Entry(EmployeeTicket ticket, Employee employee) {
+			this.ticket = ticket;
+			this.employee = employee;
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package net.javaguides.springboottesting.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+
+/**
+ * Bloom filter over all stored employee emails. A negative answer means the email is definitely
+ * new, so creates can skip the duplicate-check select; uniqueness itself is still enforced by the
+ * unique index on employees.email, so a stale filter can only cost an extra select, never a duplicate.
+ *
+ * Bloom filters cannot forget, so deleted and replaced emails are only counted and the filter is
+ * rebuilt from the table once they make up too large a share of it.
+ */
+@Component
+@Profile("!reactive")
+public class EmployeeEmailFilter implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(EmployeeEmailFilter.class);
+
+	private final EmployeeRepository employeeRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final long expectedInsertions;
+
+	private final double fpp;
+
+	private final double staleRatio;
+
+	private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "employee-email-filter-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	private final AtomicLong removals = new AtomicLong();
+
+	//null until the first build finished, every email is a "maybe" until then
+	private volatile BloomFilter<String> filter;
+
+	//filter being built while a rebuild runs, creates go to both so none are lost in the swap
+	private volatile BloomFilter<String> building;
+
+	private final Counter skipped;
+
+	private final Counter hits;
+
+	private final Counter falsePositives;
+
+	public EmployeeEmailFilter(EmployeeRepository employeeRepository, TransactionTemplate transactionTemplate,
+			MeterRegistry meterRegistry,
+			@Value("${employee.email-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${employee.email-filter.fpp:0.01}") double fpp,
+			@Value("${employee.email-filter.stale-ratio:0.1}") double staleRatio) {
+		this.employeeRepository = employeeRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.expectedInsertions = expectedInsertions;
+		this.fpp = fpp;
+		this.staleRatio = staleRatio;
+
+		this.skipped = lookupCounter(meterRegistry, "skipped");
+		this.hits = lookupCounter(meterRegistry, "hit");
+		this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+		Gauge.builder("employees.email.filter.expected.fpp", this, EmployeeEmailFilter::expectedFpp)
+				.description("False positive probability of the email bloom filter at its current fill")
+				.register(meterRegistry);
+		Gauge.builder("employees.email.filter.observed.fpp", this, EmployeeEmailFilter::observedFpp)
+				.description("Share of new emails the filter reported as possibly existing")
+				.register(meterRegistry);
+	}
+
+	private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("employees.email.filter.lookups")
+				.tag("result", result)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return false only when the email is certainly not stored yet
+	 */
+	public boolean mightContain(String email) {
+		BloomFilter<String> current = filter;
+		if (current == null || email == null)
+			return true;
+		if (current.mightContain(email))
+			return true;
+		skipped.increment();
+		return false;
+	}
+
+	public void recordHit() {
+		hits.increment();
+	}
+
+	public void recordFalsePositive() {
+		falsePositives.increment();
+	}
+
+	public void add(String email) {
+		BloomFilter<String> current = filter;
+		if (current != null)
+			current.put(email);
+		BloomFilter<String> next = building;
+		if (next != null)
+			next.put(email);
+	}
+
+	public void remove(long count) {
+		BloomFilter<String> current = filter;
+		if (count > 0 && current != null
+				&& removals.addAndGet(count) > current.approximateElementCount() * staleRatio)
+			rebuildAsync();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildAsync() {
+		if (rebuilding.compareAndSet(false, true))
+			rebuildExecutor.execute(this::rebuild);
+	}
+
+	private void rebuild() {
+		try {
+			//a read-write transaction on purpose, with read replicas (see ReplicaRoutingConfig) it reads the primary
+			//and the filter cannot miss emails a lagging replica has not seen yet
+			BloomFilter<String> next = transactionTemplate.execute(status -> {
+				long size = Math.max(expectedInsertions, employeeRepository.count() * 2);
+				BloomFilter<String> rebuilt = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), size, fpp);
+				building = rebuilt;
+				try (Stream<String> emails = employeeRepository.streamAllEmails()) {
+					emails.forEach(rebuilt::put);
+				}
+				return rebuilt;
+			});
+			filter = next;
+			removals.set(0);
+			log.info("Rebuilt employee email filter with {} emails", next.approximateElementCount());
+		} catch (RuntimeException e) {
+			log.warn("Could not rebuild employee email filter, keeping the previous one", e);
+		} finally {
+			building = null;
+			rebuilding.set(false);
+		}
+	}
+
+	private double expectedFpp() {
+		BloomFilter<String> current = filter;
+		return current == null ? 1.0 : current.expectedFpp();
+	}
+
+	private double observedFpp() {
+		double negatives = falsePositives.count() + skipped.count();
+		return negatives == 0 ? 0.0 : falsePositives.count() / negatives;
+	}
+
+	@Override
+	public void destroy() {
+		rebuildExecutor.shutdownNow();
+	}
+}
@@ -0,0 +1,595 @@
+package net.javaguides.springboottesting.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+
+/**
+ * In-memory search over first name, last name and email. Terms of three or more characters are looked up in a
+ * trigram index and match anywhere in a field; shorter terms are looked up by the first one or two characters of
+ * words and only match the start of a word. Every term of a query has to match, and hits are ranked by how well they
+ * match: a whole word beats the start of a word, which beats the middle of one.
+ *
+ * Every employee gets a slot number. Its id, version and fields (joined into one string) are kept in arrays by
+ * slot, and every trigram or word start maps to a sorted int array of slots. An employee costs about 350 bytes of
+ * heap, its field characters included (measured in the README). A query scores at most MAX_MATCHES matching
+ * employees, in slot order, and stops early once a full page has the top score: a term that matches a large part
+ * of the table is ranked among the first of its matches rather than all of them.
+ *
+ * The index is loaded from the table once the application is ready and kept up to date by EmployeeServiceImpl, so
+ * it only sees writes made through this instance. Searches answered before the load finished may miss employees.
+ */
+@Component
+@Profile("!reactive")
+public class EmployeeSearchIndex implements DisposableBean {
+
+	//deepest hit a query ranks, and so the deepest one search can page to
+	public static final int MAX_MATCHES = 1_000;
+
+	private static final Logger log = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+	private static final int GRAM = 3;
+
+	//keys of the word starts, apart from the trigrams
+	private static final String WORD_START = "\u0000";
+
+	private static final int WORD_SCORE = 3;
+
+	private static final int PREFIX_SCORE = 2;
+
+	private static final int INFIX_SCORE = 1;
+
+	private static final int INITIAL_SLOTS = 64;
+
+	private final EmployeeRepository employeeRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	//writers are serialized, readers only wait for a write in progress
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final SlotMap slotsById = new SlotMap();
+
+	//per slot: the id, the version, and first name + last name + email as one string with the ends of the first two
+	private long[] ids = new long[INITIAL_SLOTS];
+
+	private long[] versions = new long[INITIAL_SLOTS];
+
+	private String[] fields = new String[INITIAL_SLOTS];
+
+	private int[] firstNameEnds = new int[INITIAL_SLOTS];
+
+	private int[] lastNameEnds = new int[INITIAL_SLOTS];
+
+	private int slotCount;
+
+	//slots of removed employees, handed out again before new ones
+	private final Posting freeSlots = new Posting();
+
+	//trigram or word start -> slots of the employees with a field containing it
+	private final Map<String, Posting> postings = new HashMap<>();
+
+	private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "employee-search-index-load");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean loading = new AtomicBoolean();
+
+	//ids written through the service while the load runs, the load must not put back an older row for them
+	private volatile Set<Long> changedWhileLoading;
+
+	public EmployeeSearchIndex(EmployeeRepository employeeRepository, TransactionTemplate transactionTemplate,
+			MeterRegistry meterRegistry) {
+		this.employeeRepository = employeeRepository;
+		this.transactionTemplate = transactionTemplate;
+		Gauge.builder("employees.search.index.size", this, EmployeeSearchIndex::size)
+				.description("Employees in the in-memory search index")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadAsync() {
+		if (loading.compareAndSet(false, true))
+			loadExecutor.execute(this::load);
+	}
+
+	private void load() {
+		Set<Long> changed = ConcurrentHashMap.newKeySet();
+		changedWhileLoading = changed;
+		try {
+			//the scroll needs a transaction for its cursor, a read-write one keeps it on the primary like the email filter
+			transactionTemplate.executeWithoutResult(status -> employeeRepository.scrollAll(employee -> {
+				//check and index under the lock: writers mark their id before they take it, so a put or remove
+				//either is seen here or comes after this row and replaces it
+				lock.writeLock().lock();
+				try {
+					if (!changed.contains(employee.getId()))
+						index(employee);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}));
+			log.info("Loaded employee search index with {} employees", size());
+		} catch (RuntimeException e) {
+			log.warn("Could not load the employee search index, it only holds employees written since startup", e);
+		} finally {
+			changedWhileLoading = null;
+			loading.set(false);
+		}
+	}
+
+	//adds the employee, or replaces what the index held for its id
+	public void put(Employee employee) {
+		markChanged(employee.getId());
+		lock.writeLock().lock();
+		try {
+			index(employee);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	//null fields keep their indexed value, like EmployeeRepository#patchById does
+	public void patch(long id, String firstName, String lastName, String email) {
+		markChanged(id);
+		lock.writeLock().lock();
+		try {
+			int slot = slotsById.get(id);
+			if (slot >= 0) {
+				Employee indexed = employee(slot);
+				index(Employee.builder()
+						.id(id)
+						.firstName(firstName != null ? firstName : indexed.getFirstName())
+						.lastName(lastName != null ? lastName : indexed.getLastName())
+						.email(email != null ? email : indexed.getEmail())
+						//the statement bumped the version as well
+						.version(indexed.getVersion() + 1)
+						.build());
+				return;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		//not indexed yet, e.g. the load has not reached the row. the load skips it now that it is marked changed,
+		//so the committed row is read back (on the primary, like the load) and indexed here
+		Employee patchedEmployee = transactionTemplate.execute(status -> employeeRepository.findById(id).orElse(null));
+		if (patchedEmployee != null)
+			put(patchedEmployee);
+	}
+
+	public void remove(Collection<Long> ids) {
+		ids.forEach(this::markChanged);
+		lock.writeLock().lock();
+		try {
+			for (Long id : ids) {
+				int slot = slotsById.get(id);
+				if (slot >= 0)
+					unlink(id, slot);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return slotsById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the matches at offset to offset + limit - 1 of the ranking, best first
+	 */
+	public List<Employee> search(String query, int offset, int limit) {
+		List<String> terms = terms(query);
+		int wanted = Math.min(offset + limit, MAX_MATCHES);
+		if (terms.isEmpty() || limit <= 0 || offset >= wanted)
+			return Collections.emptyList();
+
+		lock.readLock().lock();
+		try {
+			//slots holding every trigram or word start of every term, verified against the fields when scored
+			List<Posting> required = new ArrayList<>();
+			for (String term : terms) {
+				for (String key : keys(term)) {
+					Posting posting = postings.get(key);
+					if (posting == null)
+						return Collections.emptyList();
+					required.add(posting);
+				}
+			}
+			//walk the smallest posting and look its slots up in the others
+			required.sort(Comparator.comparingInt(posting -> posting.size));
+			Posting smallest = required.get(0);
+			int[] from = new int[required.size()];
+
+			//keep only the best offset + limit hits instead of sorting every match
+			int topScore = WORD_SCORE * terms.size();
+			PriorityQueue<Hit> best = new PriorityQueue<>(Hit.RANKING.reversed());
+			int matches = 0;
+			for (int i = 0; i < smallest.size && matches < MAX_MATCHES; i++) {
+				int slot = smallest.slots[i];
+				if (!inAll(required, from, slot))
+					continue;
+				int score = score(slot, terms);
+				if (score == 0)
+					continue;
+				matches++;
+				//slots come in ascending order, so a hit has to score higher than the worst kept one to displace it
+				if (best.size() == wanted && score <= best.peek().score)
+					continue;
+				best.add(new Hit(slot, score));
+				if (best.size() > wanted)
+					best.poll();
+				//ties rank in slot order, nothing after a full page of top scores can rank above it
+				if (best.size() == wanted && best.peek().score == topScore)
+					break;
+			}
+
+			List<Hit> ranked = new ArrayList<>(best);
+			ranked.sort(Hit.RANKING);
+			if (offset >= ranked.size())
+				return Collections.emptyList();
+			return ranked.subList(offset, ranked.size()).stream().map(hit -> employee(hit.slot)).collect(Collectors.toList());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	//postings after the first are searched from where the previous, smaller slot was found
+	private static boolean inAll(List<Posting> required, int[] from, int slot) {
+		for (int j = 1; j < required.size(); j++) {
+			Posting posting = required.get(j);
+			int index = posting.seek(from[j], slot);
+			from[j] = index;
+			if (index >= posting.size || posting.slots[index] != slot)
+				return false;
+		}
+		return true;
+	}
+
+	private void markChanged(Long id) {
+		Set<Long> changed = changedWhileLoading;
+		if (changed != null)
+			changed.add(id);
+	}
+
+	//callers hold the write lock. an update keeps its slot and only moves it between the postings that differ
+	private void index(Employee employee) {
+		long id = employee.getId();
+		String firstName = value(employee.getFirstName());
+		String lastName = value(employee.getLastName());
+		String email = value(employee.getEmail());
+		Set<String> keys = keys(firstName, lastName, email);
+
+		int slot = slotsById.get(id);
+		if (slot >= 0) {
+			for (String key : keys(slot)) {
+				if (!keys.remove(key))
+					removeSlot(key, slot);
+			}
+		} else {
+			slot = newSlot();
+			slotsById.put(id, slot);
+		}
+		for (String key : keys)
+			postings.computeIfAbsent(key, k -> new Posting()).add(slot);
+
+		ids[slot] = id;
+		versions[slot] = employee.getVersion();
+		fields[slot] = firstName + lastName + email;
+		firstNameEnds[slot] = firstName.length();
+		lastNameEnds[slot] = firstName.length() + lastName.length();
+	}
+
+	private void unlink(long id, int slot) {
+		for (String key : keys(slot))
+			removeSlot(key, slot);
+		slotsById.remove(id);
+		fields[slot] = null;
+		freeSlots.add(slot);
+	}
+
+	private void removeSlot(String key, int slot) {
+		Posting posting = postings.get(key);
+		if (posting != null && posting.remove(slot) && posting.size == 0)
+			postings.remove(key);
+	}
+
+	private int newSlot() {
+		if (freeSlots.size > 0)
+			return freeSlots.slots[--freeSlots.size];
+		if (slotCount == ids.length) {
+			int capacity = slotCount + (slotCount >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			versions = Arrays.copyOf(versions, capacity);
+			fields = Arrays.copyOf(fields, capacity);
+			firstNameEnds = Arrays.copyOf(firstNameEnds, capacity);
+			lastNameEnds = Arrays.copyOf(lastNameEnds, capacity);
+		}
+		return slotCount++;
+	}
+
+	private Employee employee(int slot) {
+		String value = fields[slot];
+		return Employee.builder()
+				.id(ids[slot])
+				.firstName(value.substring(0, firstNameEnds[slot]))
+				.lastName(value.substring(firstNameEnds[slot], lastNameEnds[slot]))
+				.email(value.substring(lastNameEnds[slot]))
+				.version(versions[slot])
+				.build();
+	}
+
+	//0 unless every term matches
+	private int score(int slot, List<String> terms) {
+		int score = 0;
+		for (String term : terms) {
+			int termScore = Math.max(score(slot, term, 0, firstNameEnds[slot]),
+					Math.max(score(slot, term, firstNameEnds[slot], lastNameEnds[slot]),
+							score(slot, term, lastNameEnds[slot], fields[slot].length())));
+			if (termScore == 0)
+				return 0;
+			score += termScore;
+		}
+		return score;
+	}
+
+	//best match of the term within one field
+	private int score(int slot, String term, int start, int end) {
+		String value = fields[slot];
+		//short terms only match at the start of a word, like their candidates
+		boolean infix = term.length() >= GRAM;
+		int score = 0;
+		for (int at = start; at + term.length() <= end; at++) {
+			if (!matchesAt(value, at, term))
+				continue;
+			boolean wordStart = at == start || !Character.isLetterOrDigit(value.charAt(at - 1));
+			if (!wordStart && !infix)
+				continue;
+			int after = at + term.length();
+			if (wordStart && (after == end || !Character.isLetterOrDigit(value.charAt(after))))
+				return WORD_SCORE;
+			score = Math.max(score, wordStart ? PREFIX_SCORE : INFIX_SCORE);
+		}
+		return score;
+	}
+
+	//terms are lower case already, so the field is compared without copying it
+	private static boolean matchesAt(String value, int at, String term) {
+		for (int i = 0; i < term.length(); i++) {
+			if (Character.toLowerCase(value.charAt(at + i)) != term.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	static List<String> terms(String query) {
+		if (query == null)
+			return new ArrayList<>();
+		return Arrays.stream(normalize(query).split("\\s+"))
+				.filter(term -> !term.isEmpty())
+				.distinct()
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	private static String value(String field) {
+		return field == null ? "" : field;
+	}
+
+	private static String normalize(String value) {
+		return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	//what a term has to be found under: its trigrams, or the word start it is
+	private static Set<String> keys(String term) {
+		if (term.length() < GRAM)
+			return Set.of(WORD_START + term);
+		Set<String> keys = new HashSet<>();
+		for (int i = 0; i + GRAM <= term.length(); i++)
+			keys.add(term.substring(i, i + GRAM));
+		return keys;
+	}
+
+	private Set<String> keys(int slot) {
+		String value = fields[slot];
+		return keys(value.substring(0, firstNameEnds[slot]), value.substring(firstNameEnds[slot], lastNameEnds[slot]),
+				value.substring(lastNameEnds[slot]));
+	}
+
+	//the trigrams of the fields and the first one and two characters of their words, e.g. ra and ram for ramesh
+	private static Set<String> keys(String... values) {
+		Set<String> keys = new HashSet<>();
+		for (String value : values) {
+			String field = normalize(value);
+			for (int i = 0; i + GRAM <= field.length(); i++)
+				keys.add(field.substring(i, i + GRAM));
+			for (String word : field.split("[^\\p{L}\\p{N}]+")) {
+				for (int length = 1; length < GRAM && length <= word.length(); length++)
+					keys.add(WORD_START + word.substring(0, length));
+			}
+		}
+		return keys;
+	}
+
+	@Override
+	public void destroy() {
+		loadExecutor.shutdownNow();
+	}
+
+	//ascending slots without boxing, grown by half when full
+	private static class Posting {
+
+		private int[] slots = new int[2];
+
+		private int size;
+
+		void add(int slot) {
+			int index = Arrays.binarySearch(slots, 0, size, slot);
+			if (index >= 0)
+				return;
+			index = -index - 1;
+			if (size == slots.length)
+				slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+			System.arraycopy(slots, index, slots, index + 1, size - index);
+			slots[index] = slot;
+			size++;
+		}
+
+		boolean remove(int slot) {
+			int index = Arrays.binarySearch(slots, 0, size, slot);
+			if (index < 0)
+				return false;
+			System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+			size--;
+			//give back the room of a posting that shrank to a quarter
+			if (size > 0 && size <= slots.length >> 2)
+				slots = Arrays.copyOf(slots, size << 1);
+			return true;
+		}
+
+		//first index at or after from holding a slot >= the given one, galloping since callers ask in ascending order
+		int seek(int from, int slot) {
+			int step = 1;
+			int low = from;
+			int high = from;
+			while (high < size && slots[high] < slot) {
+				low = high + 1;
+				high += step;
+				step <<= 1;
+			}
+			int index = Arrays.binarySearch(slots, low, Math.min(high + 1, size), slot);
+			return index >= 0 ? index : -index - 1;
+		}
+	}
+
+	//id -> slot without boxing, open addressing with linear probing
+	private static class SlotMap {
+
+		private long[] keys = new long[INITIAL_SLOTS];
+
+		//slot + 1, 0 marks a free entry
+		private int[] values = new int[INITIAL_SLOTS];
+
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		int get(long id) {
+			int mask = keys.length - 1;
+			for (int i = index(id, mask); values[i] != 0; i = (i + 1) & mask) {
+				if (keys[i] == id)
+					return values[i] - 1;
+			}
+			return -1;
+		}
+
+		void put(long id, int slot) {
+			if ((size + 1) * 2 > keys.length)
+				resize();
+			int mask = keys.length - 1;
+			int i = index(id, mask);
+			while (values[i] != 0 && keys[i] != id)
+				i = (i + 1) & mask;
+			if (values[i] == 0)
+				size++;
+			keys[i] = id;
+			values[i] = slot + 1;
+		}
+
+		void remove(long id) {
+			int mask = keys.length - 1;
+			int gap = index(id, mask);
+			while (values[gap] != 0 && keys[gap] != id)
+				gap = (gap + 1) & mask;
+			if (values[gap] == 0)
+				return;
+			size--;
+			//move back the entries after it that probed past it, or they could not be found anymore
+			for (int i = (gap + 1) & mask; values[i] != 0; i = (i + 1) & mask) {
+				if (((i - index(keys[i], mask)) & mask) >= ((i - gap) & mask)) {
+					keys[gap] = keys[i];
+					values[gap] = values[i];
+					gap = i;
+				}
+			}
+			values[gap] = 0;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[oldKeys.length << 1];
+			values = new int[oldValues.length << 1];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldValues[j] == 0)
+					continue;
+				int i = index(oldKeys[j], mask);
+				while (values[i] != 0)
+					i = (i + 1) & mask;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+
+		private static int index(long id, int mask) {
+			long hash = id * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32)) & mask;
+		}
+	}
+
+	private static class Hit {
+
+		//best score first, ties in slot order so pages do not shift between requests
+		static final Comparator<Hit> RANKING = Comparator.<Hit>comparingInt(hit -> hit.score).reversed()
+				.thenComparingInt(hit -> hit.slot);
+
+		private final int slot;
+
+		private final int score;
+
+		Hit(int slot, int score) {
+			this.slot = slot;
+			this.score = score;
+		}
+	}
+}
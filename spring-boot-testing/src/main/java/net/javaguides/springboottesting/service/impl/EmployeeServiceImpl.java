@@ -1,21 +1,83 @@
 package net.javaguides.springboottesting.service.impl;
 
+import static org.hibernate.cfg.AvailableSettings.JPA_SHARED_CACHE_RETRIEVE_MODE;
+import static org.hibernate.cfg.AvailableSettings.JPA_SHARED_CACHE_STORE_MODE;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import net.javaguides.springboottesting.exception.ResourceNotFoundException;
+import net.javaguides.springboottesting.config.CacheConfig;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ConcurrentUpdateException;
+import net.javaguides.springboottesting.exception.ResourceAlreadyExistsException;
 import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
 import net.javaguides.springboottesting.repository.EmployeeRepository;
 import net.javaguides.springboottesting.service.EmployeeService;
 
 @Service
+@Profile("!reactive")
 public class EmployeeServiceImpl implements EmployeeService {
 	
+	public static final int MAX_PAGE_SIZE = 500;
+	
+	public static final int MAX_BATCH_SIZE = 50_000;
+	
+	public static final int MAX_DELETE_IDS = 1_000;
+	
+	//employees per transaction on bulk create, flushed as jdbc batches of hibernate.jdbc.batch_size
+	public static final int BATCH_CHUNK_SIZE = 1_000;
+	
+	//deepest search hit that can be paged to, the index ranks no more matches than that
+	public static final int MAX_SEARCH_RESULTS = EmployeeSearchIndex.MAX_MATCHES;
+	
 	@Autowired //--> removed as constructor is used
 	private EmployeeRepository employeeRepository;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	private EmployeeEmailFilter employeeEmailFilter;
+	
+	@Autowired
+	private EmployeeSearchIndex employeeSearchIndex;
+	
+	@Autowired
+	private EmployeeUpdateRetryPolicy employeeUpdateRetryPolicy;
 
 	
 	
@@ -26,20 +88,132 @@ public class EmployeeServiceImpl implements EmployeeService {
 
 
 
+	//the unique index on email is what guarantees uniqueness, the select only runs when the
+	//bloom filter cannot rule the email out and turns the common duplicate case into a cheap 409
 	@Override
+	@CachePut(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#result.id")
 	public Employee saveEmployee(Employee employee) {
 		
-		Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
+		if (employeeEmailFilter.mightContain(employee.getEmail())) {
+			Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
+			
+			if (savedEmployee.isPresent()) {
+				employeeEmailFilter.recordHit();
+				throw emailConflict(employee.getEmail(), null);
+			}
+			employeeEmailFilter.recordFalsePositive();
+		}
 		
-		if (savedEmployee.isPresent())
-			throw new ResourceNotFoundException("Employee already exist with given email: "+employee.getEmail());
+		Employee savedEmployee;
+		try {
+			savedEmployee = employeeRepository.saveAndFlush(employee);
+		} catch (DataIntegrityViolationException e) {
+			if (isEmailConflict(e))
+				throw emailConflict(employee.getEmail(), e);
+			throw e;
+		}
+		employeeEmailFilter.add(savedEmployee.getEmail());
+		employeeSearchIndex.put(savedEmployee);
+		return savedEmployee;
+	}
+
+
+
+	//chunks are committed one by one, if a chunk hits an existing email the chunks before it stay saved
+	@Override
+	public List<Employee> saveEmployees(List<Employee> employees) {
+		if (employees.size() > MAX_BATCH_SIZE)
+			throw new BadRequestException("At most "+MAX_BATCH_SIZE+" employees can be created per batch");
+		
+		Set<String> emails = new HashSet<>();
+		for (Employee employee : employees) {
+			if (!emails.add(employee.getEmail()))
+				throw new BadRequestException("Duplicate email in batch: "+employee.getEmail());
+		}
 		
-		return employeeRepository.save(employee);
+		List<Employee> savedEmployees = new ArrayList<>(employees.size());
+		for (int from = 0; from < employees.size(); from += BATCH_CHUNK_SIZE) {
+			List<Employee> chunk = employees.subList(from, Math.min(from + BATCH_CHUNK_SIZE, employees.size()));
+			try {
+				List<Employee> savedChunk = transactionTemplate.execute(status -> saveChunk(chunk));
+				//indexed once the chunk is committed, a chunk that rolls back never shows up in search
+				savedChunk.forEach(employeeSearchIndex::put);
+				savedEmployees.addAll(savedChunk);
+			} catch (RuntimeException e) {
+				if (isEmailConflict(e))
+					throw new ResourceAlreadyExistsException("Employee already exist with one of the given emails", e);
+				throw e;
+			}
+		}
+		return savedEmployees;
 	}
+	
+	private List<Employee> saveChunk(List<Employee> chunk) {
+		List<String> chunkEmails = chunk.stream().map(Employee::getEmail).collect(Collectors.toList());
+		
+		if (chunkEmails.stream().anyMatch(employeeEmailFilter::mightContain)) {
+			List<String> existingEmails = employeeRepository.findExistingEmails(chunkEmails);
+			
+			if (!existingEmails.isEmpty())
+				throw new ResourceAlreadyExistsException("Employee already exist with given emails: "+existingEmails);
+		}
+		
+		List<Employee> savedChunk = employeeRepository.saveAll(chunk);
+		//write the chunk now and drop it from the persistence context so memory does not grow per chunk
+		entityManager.flush();
+		entityManager.clear();
+		chunkEmails.forEach(employeeEmailFilter::add);
+		return savedChunk;
+	}
+
 
 
+	//one transaction for a whole group of write-behind creates (see EmployeeCreateQueue). an email that already
+	//exists, or repeats within the group, skips its employee instead of failing the group: its slot in the result
+	//is null, the others hold the saved employees
+	@Override
+	public List<Employee> saveEmployeeGroup(List<Employee> employees) {
+		List<Employee> savedEmployees = transactionTemplate.execute(status -> saveGroup(employees));
+		//indexed once the group is committed, like the chunks of saveEmployees
+		savedEmployees.stream().filter(Objects::nonNull).forEach(employeeSearchIndex::put);
+		return savedEmployees;
+	}
+	
+	private List<Employee> saveGroup(List<Employee> employees) {
+		List<String> maybeExisting = employees.stream()
+				.map(Employee::getEmail)
+				.filter(employeeEmailFilter::mightContain)
+				.collect(Collectors.toList());
+		Set<String> takenEmails = new HashSet<>();
+		if (!maybeExisting.isEmpty())
+			takenEmails.addAll(employeeRepository.findExistingEmails(maybeExisting));
+		
+		boolean[] taken = new boolean[employees.size()];
+		List<Employee> newEmployees = new ArrayList<>(employees.size());
+		for (int i = 0; i < employees.size(); i++) {
+			taken[i] = !takenEmails.add(employees.get(i).getEmail());
+			if (!taken[i])
+				newEmployees.add(employees.get(i));
+		}
+		
+		//saveAll answers in the order it was given, merged rows are not the instances that went in
+		Iterator<Employee> savedEmployees = employeeRepository.saveAll(newEmployees).iterator();
+		entityManager.flush();
+		entityManager.clear();
+		
+		List<Employee> result = new ArrayList<>(employees.size());
+		for (boolean isTaken : taken) {
+			Employee savedEmployee = isTaken ? null : savedEmployees.next();
+			if (savedEmployee != null)
+				employeeEmailFilter.add(savedEmployee.getEmail());
+			result.add(savedEmployee);
+		}
+		return result;
+	}
 
+	//read-only transactions run with flush mode MANUAL and load entities read-only, so no snapshot is kept per row
 	@Override
+	@Transactional(readOnly = true)
 	public List<Employee> getAllEmployees() {
 		return employeeRepository.findAll();
 	}
@@ -47,22 +221,233 @@ public class EmployeeServiceImpl implements EmployeeService {
 
 
 	@Override
+	@Transactional(readOnly = true)
+	public EmployeePage getEmployees(String cursor, int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		
+		//fetch one extra row so we know whether a next page exists without a count query
+		List<Employee> employees = employeeRepository.findPageAfterId(decodeCursor(cursor), PageRequest.of(0, pageSize + 1));
+		
+		if (employees.size() <= pageSize)
+			return new EmployeePage(employees, null);
+		
+		List<Employee> page = employees.subList(0, pageSize);
+		return new EmployeePage(page, encodeCursor(page.get(pageSize - 1).getId()));
+	}
+
+
+
+	//answered from EmployeeSearchIndex without touching the database, the cursor is the offset into the ranking
+	@Override
+	public EmployeePage searchEmployees(String query, String cursor, int size) {
+		if (query == null || query.trim().isEmpty())
+			throw new BadRequestException("Search query must not be blank");
+		
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		long offset = decodeCursor(cursor);
+		if (offset < 0 || offset >= MAX_SEARCH_RESULTS)
+			return new EmployeePage(List.of(), null);
+		int limit = (int) Math.min(pageSize, MAX_SEARCH_RESULTS - offset);
+		
+		//one extra hit tells whether a next page exists
+		List<Employee> employees = employeeSearchIndex.search(query, (int) offset, limit + 1);
+		
+		if (employees.size() <= limit)
+			return new EmployeePage(employees, null);
+		
+		return new EmployeePage(employees.subList(0, limit), encodeCursor(offset + limit));
+	}
+
+
+
+	//the scroll holds a JDBC cursor, so it is consumed inside one read-only transaction. rows come from a
+	//stateless session and are never attached, the persistence context (and the heap) stays flat
+	@Override
+	@Transactional(readOnly = true)
+	public void exportEmployees(Consumer<Employee> consumer) {
+		employeeRepository.scrollAll(consumer);
+	}
+
+
+
+	//misses are not cached, so an id created after a miss is visible straight away
+	@Override
+	@Cacheable(cacheNames = CacheConfig.EMPLOYEES_CACHE, unless = "#result == null")
 	public Optional<Employee> getEmployeeById(long id) {
 		return employeeRepository.findById(id);
 	}
 
 
 
+	//optimistic: the merge only applies to the version updatedEmployee was read at, no row lock is held in between.
+	//the update sets every field, so after losing a race it is applied again on the newer version, as long as
+	//the retry policy allows. each attempt is its own short transaction
 	@Override
+	@CachePut(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#result.id")
 	public Employee updateEmployee(Employee updatedEmployee) {
-		return employeeRepository.save(updatedEmployee);
+		Employee attempt = updatedEmployee;
+		for (int attemptNumber = 1; ; attemptNumber++) {
+			try {
+				return saveUpdated(attempt);
+			} catch (OptimisticLockingFailureException e) {
+				if (!employeeUpdateRetryPolicy.retryAfterConflict(attemptNumber))
+					throw concurrentUpdate(updatedEmployee.getId(), e);
+			}
+			attempt = atCurrentVersion(updatedEmployee);
+		}
+	}
+
+
+
+	//no retry, the caller checked a precondition (If-Match) against updatedEmployee's version
+	@Override
+	@CachePut(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#result.id")
+	public Employee updateEmployeeIfUnchanged(Employee updatedEmployee) {
+		try {
+			return saveUpdated(updatedEmployee);
+		} catch (OptimisticLockingFailureException e) {
+			throw concurrentUpdate(updatedEmployee.getId(), e);
+		}
+	}
+	
+	//the version is read past the second-level cache, whose entry may be the very copy that just lost (written by
+	//another instance), and the entry is refreshed with it so the merge of the next attempt compares against it too
+	private Employee atCurrentVersion(Employee updatedEmployee) {
+		Employee currentEmployee = entityManager.find(Employee.class, updatedEmployee.getId(),
+				Map.of(JPA_SHARED_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS,
+						JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.REFRESH));
+		if (currentEmployee == null)
+			throw new ConcurrentUpdateException("Employee "+updatedEmployee.getId()+" was deleted by another request");
+		
+		return Employee.builder()
+				.id(updatedEmployee.getId())
+				.firstName(updatedEmployee.getFirstName())
+				.lastName(updatedEmployee.getLastName())
+				.email(updatedEmployee.getEmail())
+				.version(currentEmployee.getVersion())
+				.build();
+	}
+	
+	private Employee saveUpdated(Employee updatedEmployee) {
+		Employee savedEmployee;
+		try {
+			savedEmployee = employeeRepository.save(updatedEmployee);
+		} catch (DataIntegrityViolationException e) {
+			if (isEmailConflict(e))
+				throw emailConflict(updatedEmployee.getEmail(), e);
+			throw e;
+		}
+		//a replaced email stays in the filter until the next rebuild, that only costs one extra select
+		employeeEmailFilter.add(savedEmployee.getEmail());
+		employeeSearchIndex.put(savedEmployee);
+		return savedEmployee;
+	}
+
+
+
+	//single UPDATE, the affected row count tells whether the employee exists
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+	public boolean patchEmployee(long id, Employee changes) {
+		requireChanges(changes);
+		int updatedRows;
+		try {
+			updatedRows = employeeRepository.patchById(id, changes.getFirstName(), changes.getLastName(), changes.getEmail());
+		} catch (DataIntegrityViolationException e) {
+			if (isEmailConflict(e))
+				throw emailConflict(changes.getEmail(), e);
+			throw e;
+		}
+		if (updatedRows > 0 && changes.getEmail() != null)
+			employeeEmailFilter.add(changes.getEmail());
+		if (updatedRows > 0)
+			employeeSearchIndex.patch(id, changes.getFirstName(), changes.getLastName(), changes.getEmail());
+		return updatedRows > 0;
+	}
+
+
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+	public boolean deleteEmployee(long id) {
+		int deletedRows = employeeRepository.removeById(id);
+		employeeEmailFilter.remove(deletedRows);
+		if (deletedRows > 0)
+			employeeSearchIndex.remove(List.of(id));
+		return deletedRows > 0;
+	}
+
+
+
+	//false when the employee is gone or no longer has this version, a single DELETE either way
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+	public boolean deleteEmployee(long id, long version) {
+		int deletedRows = employeeRepository.removeByIdAndVersion(id, version);
+		employeeEmailFilter.remove(deletedRows);
+		if (deletedRows > 0)
+			employeeSearchIndex.remove(List.of(id));
+		return deletedRows > 0;
 	}
 
 
 
 	@Override
-	public void deleteEmployee(long id) {
-		employeeRepository.deleteById(id);
+	@CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, allEntries = true)
+	public int deleteEmployees(Collection<Long> ids) {
+		if (ids.size() > MAX_DELETE_IDS)
+			throw new BadRequestException("At most "+MAX_DELETE_IDS+" employees can be deleted at once");
+		if (ids.isEmpty())
+			return 0;
+		
+		int deletedRows = employeeRepository.removeByIdIn(ids);
+		employeeEmailFilter.remove(deletedRows);
+		employeeSearchIndex.remove(ids);
+		return deletedRows;
+	}
+
+
+
+	//the statement bumps the version even when every field is null, and with it every client's ETag.
+	//shared with ReactiveEmployeeServiceImpl
+	static void requireChanges(Employee changes) {
+		if (changes.getFirstName() == null && changes.getLastName() == null && changes.getEmail() == null)
+			throw new BadRequestException("Patch must change at least one of firstName, lastName or email");
+	}
+	
+	private static ConcurrentUpdateException concurrentUpdate(long id, Throwable cause) {
+		return new ConcurrentUpdateException("Employee "+id+" was changed by another request", cause);
+	}
+	
+	private static ResourceAlreadyExistsException emailConflict(String email, Throwable cause) {
+		return new ResourceAlreadyExistsException("Employee already exist with given email: "+email, cause);
+	}
+	
+	private static boolean isEmailConflict(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException) {
+				String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+				return constraintName != null
+						&& constraintName.toLowerCase(Locale.ROOT).contains(Employee.EMAIL_CONSTRAINT);
+			}
+		}
+		return false;
+	}
+	
+	//shared with ReactiveEmployeeServiceImpl so cursors work against either stack
+	static String encodeCursor(long lastId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	static long decodeCursor(String cursor) {
+		if (cursor == null || cursor.isEmpty())
+			return 0L;
+		try {
+			return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid page cursor: "+cursor, e);
+		}
 	}
 
 }
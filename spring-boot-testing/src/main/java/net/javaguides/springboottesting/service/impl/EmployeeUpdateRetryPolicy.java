@@ -0,0 +1,71 @@
+package net.javaguides.springboottesting.service.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Retry budget for updates that lost an optimistic locking race (see EmployeeServiceImpl#updateEmployee).
+ * No row lock is held between the read and the write, so two updates of one employee can both read a version
+ * and only the first to commit wins; the other is applied again on the newer version.
+ *
+ * Attempts are spaced with full jitter: a random pause between 0 and an exponentially growing cap, so updates
+ * that collided once do not collide again in lockstep.
+ */
+@Component
+@Profile("!reactive")
+public class EmployeeUpdateRetryPolicy {
+
+	private final int maxAttempts;
+
+	private final long backoffMs;
+
+	private final long maxBackoffMs;
+
+	private final Counter conflicts;
+
+	private final Counter retries;
+
+	public EmployeeUpdateRetryPolicy(MeterRegistry meterRegistry,
+			@Value("${employee.update.max-attempts:4}") int maxAttempts,
+			@Value("${employee.update.backoff-ms:5}") long backoffMs,
+			@Value("${employee.update.max-backoff-ms:100}") long maxBackoffMs) {
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoffMs = backoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+		this.conflicts = Counter.builder("employees.update.conflicts")
+				.description("Employee updates that lost against a concurrent update")
+				.register(meterRegistry);
+		this.retries = Counter.builder("employees.update.retries")
+				.description("Employee updates applied again after a conflict")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Records a conflict of the given attempt (1 for the first) and tells whether another attempt may follow,
+	 * after pausing the calling thread for the jittered backoff. False once the attempts are used up, or when the
+	 * thread is interrupted while pausing.
+	 */
+	public boolean retryAfterConflict(int attempt) {
+		conflicts.increment();
+		if (attempt >= maxAttempts)
+			return false;
+
+		//5, 10, 20 ... ms caps, bounded by maxBackoffMs
+		long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+		try {
+			//Thread.sleep rather than TimeUnit, which skips a pause of 0 without looking at the interrupt flag
+			Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		retries.increment();
+		return true;
+	}
+}
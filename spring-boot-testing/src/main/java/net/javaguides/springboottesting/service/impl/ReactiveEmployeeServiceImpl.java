@@ -0,0 +1,172 @@
+package net.javaguides.springboottesting.service.impl;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ResourceAlreadyExistsException;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import net.javaguides.springboottesting.repository.ReactiveEmployeeRepository;
+import net.javaguides.springboottesting.service.ReactiveEmployeeService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//same limits and error mapping as EmployeeServiceImpl, uniqueness is left to the unique index on email
+@Service
+@Profile("reactive")
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+	private final ReactiveEmployeeRepository employeeRepository;
+
+	public ReactiveEmployeeServiceImpl(ReactiveEmployeeRepository employeeRepository) {
+		this.employeeRepository = employeeRepository;
+	}
+
+
+
+	@Override
+	public Mono<Employee> saveEmployee(Employee employee) {
+		return employeeRepository.insert(employee)
+				.onErrorMap(ReactiveEmployeeServiceImpl::isEmailConflict, e -> emailConflict(employee.getEmail(), e));
+	}
+
+
+
+	//chunks are committed one by one, if a chunk hits an existing email the chunks before it stay saved
+	@Override
+	public Flux<Employee> saveEmployees(List<Employee> employees) {
+		if (employees.size() > EmployeeServiceImpl.MAX_BATCH_SIZE)
+			return Flux.error(new BadRequestException("At most "+EmployeeServiceImpl.MAX_BATCH_SIZE+" employees can be created per batch"));
+
+		Set<String> emails = new HashSet<>();
+		for (Employee employee : employees) {
+			if (!emails.add(employee.getEmail()))
+				return Flux.error(new BadRequestException("Duplicate email in batch: "+employee.getEmail()));
+		}
+
+		return Flux.fromIterable(employees)
+				.buffer(EmployeeServiceImpl.BATCH_CHUNK_SIZE)
+				.concatMap(this::saveChunk)
+				.onErrorMap(ReactiveEmployeeServiceImpl::isEmailConflict,
+						e -> new ResourceAlreadyExistsException("Employee already exist with one of the given emails", e));
+	}
+
+	private Flux<Employee> saveChunk(List<Employee> chunk) {
+		List<String> chunkEmails = chunk.stream().map(Employee::getEmail).collect(Collectors.toList());
+		return employeeRepository.findExistingEmails(chunkEmails)
+				.collectList()
+				.flatMapMany(existingEmails -> existingEmails.isEmpty()
+						? employeeRepository.insertAll(chunk)
+						: Flux.error(new ResourceAlreadyExistsException("Employee already exist with given emails: "+existingEmails)));
+	}
+
+
+
+	//the page is bounded by MAX_PAGE_SIZE and collected, the next cursor has to be known before the body is written
+	@Override
+	public Mono<EmployeePage> getEmployees(String cursor, int size) {
+		int pageSize = Math.max(1, Math.min(size, EmployeeServiceImpl.MAX_PAGE_SIZE));
+		long afterId;
+		try {
+			afterId = EmployeeServiceImpl.decodeCursor(cursor);
+		} catch (BadRequestException e) {
+			return Mono.error(e);
+		}
+
+		return employeeRepository.findPageAfterId(afterId, pageSize + 1)
+				.collectList()
+				.map(employees -> {
+					if (employees.size() <= pageSize)
+						return new EmployeePage(employees, null);
+					List<Employee> page = employees.subList(0, pageSize);
+					return new EmployeePage(page, EmployeeServiceImpl.encodeCursor(page.get(pageSize - 1).getId()));
+				});
+	}
+
+
+
+	@Override
+	public Flux<Employee> exportEmployees() {
+		return employeeRepository.streamAll();
+	}
+
+
+
+	@Override
+	public Mono<Employee> getEmployeeById(long id) {
+		return employeeRepository.findById(id);
+	}
+
+
+
+	//single UPDATE, empty when the employee does not exist
+	@Override
+	public Mono<Employee> updateEmployee(Employee updatedEmployee) {
+		return employeeRepository.update(updatedEmployee)
+				.onErrorMap(ReactiveEmployeeServiceImpl::isEmailConflict, e -> emailConflict(updatedEmployee.getEmail(), e))
+				.filter(updatedRows -> updatedRows > 0)
+				//read back, the update bumped the version, so the body as sent is one version behind the row
+				.flatMap(updatedRows -> employeeRepository.findById(updatedEmployee.getId()));
+	}
+
+
+
+	@Override
+	public Mono<Boolean> patchEmployee(long id, Employee changes) {
+		try {
+			EmployeeServiceImpl.requireChanges(changes);
+		} catch (BadRequestException e) {
+			return Mono.error(e);
+		}
+		return employeeRepository.patchById(id, changes.getFirstName(), changes.getLastName(), changes.getEmail())
+				.onErrorMap(ReactiveEmployeeServiceImpl::isEmailConflict, e -> emailConflict(changes.getEmail(), e))
+				.map(updatedRows -> updatedRows > 0);
+	}
+
+
+
+	@Override
+	public Mono<Boolean> deleteEmployee(long id) {
+		return employeeRepository.removeById(id).map(deletedRows -> deletedRows > 0);
+	}
+
+
+
+	@Override
+	public Mono<Integer> deleteEmployees(Collection<Long> ids) {
+		if (ids.size() > EmployeeServiceImpl.MAX_DELETE_IDS)
+			return Mono.error(new BadRequestException("At most "+EmployeeServiceImpl.MAX_DELETE_IDS+" employees can be deleted at once"));
+		if (ids.isEmpty())
+			return Mono.just(0);
+
+		return employeeRepository.removeByIdIn(ids);
+	}
+
+
+
+	private static ResourceAlreadyExistsException emailConflict(String email, Throwable cause) {
+		return new ResourceAlreadyExistsException("Employee already exist with given email: "+email, cause);
+	}
+
+	//R2DBC drivers only report the violated constraint in the message
+	private static boolean isEmailConflict(Throwable e) {
+		if (!(e instanceof DataIntegrityViolationException))
+			return false;
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			String message = cause.getMessage();
+			if (message != null && message.toLowerCase(Locale.ROOT).contains(Employee.EMAIL_CONSTRAINT))
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,13 @@
+-- same schema as db/migration/mysql, for the embedded H2 databases of the tests and benchmarks
+
+create table employees (
+    id bigint not null,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    primary key (id)
+);
+
+alter table employees add constraint uk_employees_email unique (email);
+
+create sequence employees_seq start with 1 increment by 50;
@@ -0,0 +1,2 @@
+-- the four first/last name lookups of EmployeeRepository, without it each one scans the table
+create index idx_employees_name on employees (first_name, last_name);
@@ -0,0 +1,2 @@
+-- optimistic locking version of Employee, also the ETag of /api/employees/{id}. existing rows start at 0
+alter table employees add column version bigint not null default 0;
@@ -0,0 +1,20 @@
+-- the schema ddl-auto=update created for Employee on MySQL. existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so V1 only runs on an empty schema
+
+create table employees (
+    id bigint not null,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- backs lookups by email and is the uniqueness guarantee, the name is what EmployeeServiceImpl maps to a 409
+alter table employees add constraint uk_employees_email unique (email);
+
+-- hibernate emulates the pooled employees_seq with a one row table on MySQL
+create table employees_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into employees_seq values (1);
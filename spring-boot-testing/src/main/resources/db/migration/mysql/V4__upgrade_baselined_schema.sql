@@ -0,0 +1,58 @@
+-- brings a schema that ddl-auto=update created before the migrations up to V1. such a database is baselined at V1
+-- (spring.flyway.baseline-on-migrate), so V1 never ran on it: the id is an auto_increment IDENTITY column, there is
+-- no uk_employees_email and no employees_seq, or an employees_seq that hibernate created with next_val 1.
+-- every step is a no-op on a schema that V1 created
+
+-- the unique constraint cannot be added over duplicate emails. the migration never deletes employees: before anything
+-- changes it fails and names the ids of every repeated email, which an operator resolves before redeploying (see
+-- "Duplicate emails" in the README)
+drop procedure if exists check_unique_employee_emails;
+
+DELIMITER $$
+create procedure check_unique_employee_emails()
+begin
+    declare duplicates text;
+    -- message_text holds at most 128 characters, the README query lists all of them
+    declare message varchar(128);
+
+    select group_concat(ids order by ids separator '; ') into duplicates
+    from (
+        select group_concat(id order by id) as ids
+        from employees
+        group by email
+        having count(*) > 1
+    ) repeated;
+
+    if duplicates is not null then
+        set message = left(concat('Duplicate employee emails, ids: ', duplicates), 128);
+        signal sqlstate '45000' set message_text = message;
+    end if;
+end$$
+DELIMITER ;
+
+call check_unique_employee_emails();
+drop procedure check_unique_employee_emails;
+
+-- ids come from employees_seq now, hibernate validates the column as a plain bigint
+alter table employees modify id bigint not null;
+
+set @add_email_constraint = (
+    select if(count(*) = 0, 'alter table employees add constraint uk_employees_email unique (email)', 'do 0')
+    from information_schema.table_constraints
+    where table_schema = database() and table_name = 'employees' and constraint_name = 'uk_employees_email'
+);
+prepare add_email_constraint from @add_email_constraint;
+execute add_email_constraint;
+deallocate prepare add_email_constraint;
+
+create table if not exists employees_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into employees_seq (next_val)
+select 1 from dual where not exists (select * from employees_seq);
+
+-- hibernate's pooled optimizer and ReactiveEmployeeRepository hand out the block next_val - 49 .. next_val,
+-- so the first block has to start above the highest existing id
+update employees_seq
+set next_val = greatest(next_val, (select coalesce(max(id), 0) + 50 from employees));
@@ -0,0 +1,85 @@
+package net.javaguides.springboottesting.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+//a cached platform thread pool stands in for the virtual thread per task executor, which needs Java 21
+public class VirtualThreadBulkheadExecutorTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private VirtualThreadBulkheadExecutor executor;
+
+	@BeforeEach
+	public void setup() {
+		executor = new VirtualThreadBulkheadExecutor(Executors.newCachedThreadPool(), task -> task, 1, 1);
+	}
+
+	@AfterEach
+	public void cleanup() throws InterruptedException {
+		release.countDown();
+		executor.destroy();
+	}
+
+	@DisplayName("JUnit test for a full bulkhead rejecting calls")
+	@Test
+	public void givenRunningAndWaitingCall_whenSubmit_thenRejected() throws Exception {
+
+		//given - precondition or setup
+		CountDownLatch started = new CountDownLatch(1);
+		executor.submit(() -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		executor.submit(() -> { });
+
+		//when - action or behavior that we are going to test
+		org.junit.jupiter.api.Assertions.assertThrows(RejectedExecutionException.class, () ->
+		executor.submit(() -> { }));
+
+		//then - verify the result
+		assertThat(executor.getActiveCount()).isEqualTo(1);
+		assertThat(executor.getQueuedCount()).isEqualTo(1);
+	}
+
+	@DisplayName("JUnit test for a waiting call cancelled before it runs")
+	@Test
+	public void givenWaitingCall_whenCancelled_thenNeverRuns() throws Exception {
+
+		//given - precondition or setup
+		CountDownLatch started = new CountDownLatch(1);
+		Future<?> running = executor.submit(() -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		AtomicBoolean ran = new AtomicBoolean();
+		Future<?> waiting = executor.submit(() -> ran.set(true));
+
+		//when - action or behavior that we are going to test
+		waiting.cancel(false);
+		release.countDown();
+		running.get(5, TimeUnit.SECONDS);
+		//permits are given back just after the future completes
+		while (executor.getActiveCount() > 0 || executor.getQueuedCount() > 0)
+			Thread.sleep(10);
+
+		//then - verify the result, the freed permits take a new call
+		executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+		assertThat(ran).isFalse();
+	}
+}
@@ -0,0 +1,26 @@
+package net.javaguides.springboottesting.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+/**
+ * EmployeeController answers on the employee executor, so a MockMvc request only starts async processing.
+ * {@link #performAsync} waits for the result and runs the async dispatch that writes the response.
+ */
+public final class AsyncMockMvc {
+
+	private AsyncMockMvc() {
+	}
+
+	public static ResultActions performAsync(MockMvc mockMvc, RequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+}
@@ -0,0 +1,104 @@
+package net.javaguides.springboottesting.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import net.javaguides.springboottesting.config.EmployeeExecutorConfig;
+import net.javaguides.springboottesting.exception.ServiceUnavailableException;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.service.EmployeeService;
+import net.javaguides.springboottesting.service.impl.EmployeeCreateQueue;
+
+//one executor thread and no queue, so a single slow call fills the bulkhead
+@WebMvcTest(properties = {
+		"employee.executor.pool-size=1",
+		"employee.executor.queue-capacity=0",
+		"employee.executor.timeout-ms=200" })
+@Import(EmployeeExecutorConfig.class)
+public class EmployeeControllerBulkheadTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private EmployeeService employeeService;
+
+	@MockBean
+	private EmployeeCreateQueue employeeCreateQueue;
+
+	@Autowired
+	private ThreadPoolTaskExecutor employeeExecutor;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void releaseExecutor() throws InterruptedException {
+		release.countDown();
+		//the next test needs the only executor thread
+		while (employeeExecutor.getActiveCount() > 0)
+			Thread.sleep(10);
+	}
+
+	@DisplayName("JUnit test for get employee REST API when the executor is busy")
+	@Test
+	public void givenBusyExecutor_whenGetEmployeeById_thenReturn503() throws Exception {
+
+		//given - precondition or setup
+		CountDownLatch started = new CountDownLatch(1);
+		given(employeeService.getEmployeeById(1L)).willAnswer(invocation -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.empty();
+		});
+		mockMvc.perform(get("/api/employees/{id}", 1L)).andExpect(request().asyncStarted());
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		//when - action or behavior that we are going to test
+		ResultActions response = mockMvc.perform(get("/api/employees/{id}", 2L));
+
+		//then - verify the result
+		response.andExpect(request().asyncNotStarted())
+				.andExpect(status().isServiceUnavailable());
+	}
+
+	@DisplayName("JUnit test for get employee REST API when the service call times out")
+	@Test
+	public void givenSlowService_whenGetEmployeeById_thenReturn503() throws Exception {
+
+		//given - precondition or setup
+		given(employeeService.getEmployeeById(1L)).willAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		});
+
+		//when - action or behavior that we are going to test
+		MvcResult started = mockMvc.perform(get("/api/employees/{id}", 1L))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		ResultActions response = mockMvc.perform(asyncDispatch(started));
+
+		//then - verify the result
+		response.andExpect(status().isServiceUnavailable());
+		assertThat(started.getAsyncResult()).isInstanceOf(ServiceUnavailableException.class);
+	}
+}
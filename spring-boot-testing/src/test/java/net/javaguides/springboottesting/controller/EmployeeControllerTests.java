@@ -1,25 +1,39 @@
 package net.javaguides.springboottesting.controller;
 
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -27,12 +41,17 @@ import org.springframework.test.web.servlet.ResultActions;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import net.javaguides.springboottesting.config.EmployeeExecutorConfig;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ConcurrentUpdateException;
 import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import net.javaguides.springboottesting.model.EmployeeTicket;
 import net.javaguides.springboottesting.service.EmployeeService;
-
-import static org.mockito.BDDMockito.willDoNothing;
+import net.javaguides.springboottesting.service.impl.EmployeeCreateQueue;
 
 @WebMvcTest
+@Import(EmployeeExecutorConfig.class)
 public class EmployeeControllerTests {
 	
 	@Autowired
@@ -41,6 +60,9 @@ public class EmployeeControllerTests {
 	@MockBean
 	private EmployeeService employeeService;
 	
+	@MockBean
+	private EmployeeCreateQueue employeeCreateQueue;
+	
 	@Autowired
 	private ObjectMapper objectMapper; //for json
 	
@@ -53,7 +75,7 @@ public class EmployeeControllerTests {
 		.willAnswer(invocation->invocation.getArgument(0));
 		
 		//when - action or behavior that we are going test
-		ResultActions response = mockMvc.perform(post("/api/employees")
+		ResultActions response = performAsync(mockMvc, post("/api/employees")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(objectMapper.writeValueAsString(employee)));
 		
@@ -64,6 +86,96 @@ public class EmployeeControllerTests {
 				.andExpect(jsonPath("$.email", is(employee.getEmail())));
 	}
 	
+	@DisplayName("JUnit test for async create employee REST API")
+	@Test
+	public void givenEmployeeObject_whenCreateEmployeeAsync_thenReturn202WithTicket() throws Exception {
+		
+		//given - precondition or setup
+		Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
+		given(employeeCreateQueue.enqueue(any(Employee.class))).willReturn(EmployeeTicket.pending("t-1"));
+		
+		//when - action or behavior that we are going test
+		ResultActions response = mockMvc.perform(post("/api/employees")
+				.param("async", "true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(employee)));
+		
+		//then - verify the result or output using assert statements
+		response.andExpect(status().isAccepted())
+				.andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/employees/tickets/t-1"))
+				.andExpect(jsonPath("$.id", is("t-1")))
+				.andExpect(jsonPath("$.status", is("PENDING")));
+		verify(employeeService, never()).saveEmployee(any(Employee.class));
+	}
+	
+	@DisplayName("JUnit test for async create ticket REST API")
+	@Test
+	public void givenCreatedTicket_whenGetCreateTicket_thenReturnSavedEmployee() throws Exception {
+		
+		//given - precondition or setup
+		Employee savedEmployee = Employee.builder().id(7L).firstName("Ramesh").lastName("Fadatare").email("ramesh@gmail.com").build();
+		given(employeeCreateQueue.getTicket("t-1")).willReturn(Optional.of(EmployeeTicket.pending("t-1").created(savedEmployee)));
+		given(employeeCreateQueue.getTicket("t-2")).willReturn(Optional.empty());
+		
+		//when - action or behavior that we are going test
+		ResultActions response = mockMvc.perform(get("/api/employees/tickets/{ticket}", "t-1"));
+		ResultActions unknown = mockMvc.perform(get("/api/employees/tickets/{ticket}", "t-2"));
+		
+		//then - verify the result or output using assert statements
+		response.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status", is("CREATED")))
+				.andExpect(jsonPath("$.employee.id", is(7)));
+		unknown.andExpect(status().isNotFound());
+	}
+	
+	@DisplayName("JUnit test for create employees batch REST API")
+	@Test
+	public void givenEmployeeList_whenCreateEmployees_thenReturnSavedEmployees() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> listOfEmployees = List.of(new Employee("Rmesh", "Fatadare", "ramesh@gmail.com"),
+				new Employee("Tony", "Start", "tony@gmail.com"));
+		given(employeeService.saveEmployees(any()))
+		.willAnswer(invocation->invocation.getArgument(0));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, post("/api/employees/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(listOfEmployees)));
+		
+		//then - verify the result
+		response.andExpect(status().isCreated())
+		.andDo(print())
+		.andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+		.andExpect(jsonPath("$[1].email", is("tony@gmail.com")));
+	}
+
+	@DisplayName("JUnit test for create employee REST APIs given an existing id")
+	@Test
+	public void givenEmployeeWithId_whenCreateEmployeeOrBatch_thenReturn400() throws Exception {
+
+		//given - precondition or setup
+		Employee existingEmployee = Employee.builder().id(1L).firstName("Ramesh").lastName("Fadatare")
+				.email("ramesh@gmail.com").build();
+		Employee versionedEmployee = Employee.builder().firstName("Tony").lastName("Stark")
+				.email("tony@gmail.com").version(3L).build();
+
+		//when - action or behavior that we are going to test
+		ResultActions single = mockMvc.perform(post("/api/employees")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(existingEmployee)));
+		ResultActions batch = mockMvc.perform(post("/api/employees/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(List.of(new Employee("John", "Cena", "cena@gmail.com"),
+						versionedEmployee))));
+
+		//then - verify the result
+		single.andExpect(status().isBadRequest());
+		batch.andExpect(status().isBadRequest());
+		verify(employeeService, never()).saveEmployee(any(Employee.class));
+		verify(employeeService, never()).saveEmployees(any());
+	}
+
 	@DisplayName("Given list of employees given all employees get all employees")
 	@Test
 	public void givenEmployeeList_whenGetAllEmployees_thenListOfEmployees() throws Exception {
@@ -72,15 +184,80 @@ public class EmployeeControllerTests {
 		List<Employee> listOfEmployees = new ArrayList<>();
 		listOfEmployees.add(new Employee("Rmesh", "Fatadare", "ramesh@gmail.com"));
 		listOfEmployees.add(new Employee("Tony", "Start", "tony@gmail.com"));
-		given(employeeService.getAllEmployees()).willReturn(listOfEmployees);
+		given(employeeService.getEmployees(null, 50)).willReturn(new EmployeePage(listOfEmployees, null));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees"));
+		ResultActions response = performAsync(mockMvc, get("/api/employees"));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
 		.andDo(print())
-		.andExpect(jsonPath("$.size()", is(listOfEmployees.size())));
+		.andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+		.andExpect(header().doesNotExist(HttpHeaders.LINK));
+	}
+	
+	@DisplayName("JUnit test for paginated get all employees REST API")
+	@Test
+	public void givenMoreEmployeesThanPageSize_whenGetAllEmployees_thenReturnNextLink() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> firstPage = List.of(new Employee("Rmesh", "Fatadare", "ramesh@gmail.com"));
+		given(employeeService.getEmployees(null, 1)).willReturn(new EmployeePage(firstPage, "MQ"));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, get("/api/employees").param("size", "1"));
+		
+		//then - verify the result
+		response.andExpect(status().isOk())
+		.andDo(print())
+		.andExpect(jsonPath("$.size()", is(1)))
+		.andExpect(header().string(HttpHeaders.LINK, containsString("cursor=MQ")))
+		.andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+	}
+
+	@DisplayName("JUnit test for search employees REST API")
+	@Test
+	public void givenMatchingEmployees_whenSearchEmployees_thenReturnRankedPageWithNextLink() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> firstPage = List.of(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		given(employeeService.searchEmployees("ram", null, 1)).willReturn(new EmployeePage(firstPage, "MQ"));
+
+		//when - action or behavior that we are going to test
+		//in the uri, .param() does not fill in the query string the next link is built from
+		ResultActions response = mockMvc.perform(get("/api/employees/search?q=ram&size=1"));
+
+		//then - verify the result
+		response.andExpect(status().isOk())
+		.andExpect(jsonPath("$.size()", is(1)))
+		.andExpect(jsonPath("$[0].email", is("ramesh@gmail.com")))
+		.andExpect(header().string(HttpHeaders.LINK, containsString("q=ram")))
+		.andExpect(header().string(HttpHeaders.LINK, containsString("cursor=MQ")));
+	}
+
+	@DisplayName("JUnit test for export employees REST API")
+	@Test
+	public void givenEmployeeList_whenExportEmployees_thenReturnNdjson() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> listOfEmployees = List.of(new Employee("Rmesh", "Fatadare", "ramesh@gmail.com"),
+				new Employee("Tony", "Start", "tony@gmail.com"));
+		willAnswer(invocation -> {
+			Consumer<Employee> consumer = invocation.getArgument(0);
+			listOfEmployees.forEach(consumer);
+			return null;
+		}).given(employeeService).exportEmployees(any());
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = mockMvc.perform(get("/api/employees/export"));
+		
+		//then - verify the result
+		String[] lines = response.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString().split("\n");
+		assertThat(lines).hasSize(2);
+		assertThat(lines[1]).startsWith("{");
+		assertThat(objectMapper.readValue(lines[1], Employee.class).getEmail()).isEqualTo("tony@gmail.com");
 	}
 	
 	@DisplayName("valid employee id should return employee")
@@ -97,7 +274,7 @@ public class EmployeeControllerTests {
 		given(employeeService.getEmployeeById(employee.getId())).willReturn(Optional.of(employee));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -122,12 +299,61 @@ public class EmployeeControllerTests {
 		given(employeeService.getEmployeeById(employee.getId())).willReturn(Optional.empty());
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isNotFound()).andDo(print());
 	}
 	
+	@DisplayName("JUnit test for get employee by id REST API with the current ETag in If-None-Match")
+	@Test
+	public void givenCurrentETag_whenGetEmployeeById_thenReturn304WithoutBody() throws Exception {
+
+		//given - precondition or setup
+		Employee employee = Employee.builder()
+							.id(1L)
+							.firstName("Ramesh")
+							.lastName("Fadatare")
+							.email("ramesh@gmail.com")
+							.version(3L)
+							.build();
+		given(employeeService.getEmployeeById(employee.getId())).willReturn(Optional.of(employee));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", employee.getId())
+										.header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+		
+		//then - verify the result
+		response.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+				.andExpect(content().string(""));
+	}
+	
+	@DisplayName("JUnit test for paginated get all employees REST API with the page ETag in If-None-Match")
+	@Test
+	public void givenUnchangedPage_whenGetAllEmployees_thenReturn304() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> employees = List.of(Employee.builder().id(1L).firstName("Ramesh").lastName("Fadatare").email("ramesh@gmail.com").build(),
+				Employee.builder().id(2L).firstName("Tony").lastName("Stark").email("tony@gmail.com").version(1L).build());
+		given(employeeService.getEmployees(null, 50)).willReturn(new EmployeePage(employees, null));
+		String etag = performAsync(mockMvc, get("/api/employees"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		//when - action or behavior that we are going to test
+		ResultActions unchanged = performAsync(mockMvc, get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, etag));
+		given(employeeService.getEmployees(null, 50)).willReturn(new EmployeePage(List.of(employees.get(0),
+				Employee.builder().id(2L).firstName("Tony").lastName("Stark").email("stark@gmail.com").version(2L).build()), null));
+		ResultActions changed = performAsync(mockMvc, get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, etag));
+		
+		//then - verify the result
+		unchanged.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		changed.andExpect(status().isOk())
+				.andExpect(jsonPath("$[1].email", is("stark@gmail.com")));
+	}
+	
 	
 	@DisplayName("JUnit test for udate employee REST API")
 	@Test
@@ -153,7 +379,7 @@ public class EmployeeControllerTests {
 							.willAnswer(invocation -> invocation.getArgument(0));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", employeeId)
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -186,7 +412,7 @@ public class EmployeeControllerTests {
 							.willAnswer(invocation -> invocation.getArgument(0));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", employeeId)
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -194,6 +420,117 @@ public class EmployeeControllerTests {
 		response.andExpect(status().isNotFound()).andDo(print());
 	}
 	
+	@DisplayName("JUnit test for update employee REST API with a stale ETag in If-Match")
+	@Test
+	public void givenStaleETag_whenUpdateEmployee_thenReturn412() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee savedEmployee = Employee.builder()
+							.id(employeeId)
+							.firstName("Ramesh")
+							.lastName("Fadatare")
+							.email("ramesh@gmail.com")
+							.version(2L)
+							.build();
+		Employee updatedEmployee = new Employee("Ram", "Jadav", "ram@gmail.com");
+		given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", employeeId)
+										.header(HttpHeaders.IF_MATCH, "\"1\"")
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(objectMapper.writeValueAsString(updatedEmployee)));
+		
+		//then - verify the result
+		response.andExpect(status().isPreconditionFailed());
+		verify(employeeService, never()).updateEmployeeIfUnchanged(any(Employee.class));
+	}
+	
+	@DisplayName("JUnit test for update employee REST API when the employee changes after the If-Match check")
+	@Test
+	public void givenConcurrentUpdate_whenUpdateEmployeeWithIfMatch_thenReturn412() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee savedEmployee = Employee.builder()
+							.id(employeeId)
+							.firstName("Ramesh")
+							.lastName("Fadatare")
+							.email("ramesh@gmail.com")
+							.version(2L)
+							.build();
+		Employee updatedEmployee = new Employee("Ram", "Jadav", "ram@gmail.com");
+		given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+		given(employeeService.updateEmployeeIfUnchanged(any(Employee.class))).willThrow(new ConcurrentUpdateException("changed"));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", employeeId)
+										.header(HttpHeaders.IF_MATCH, "\"2\"")
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(objectMapper.writeValueAsString(updatedEmployee)));
+		
+		//then - verify the result
+		response.andExpect(status().isPreconditionFailed());
+		//the update was conditional on the version the If-Match was checked against
+		verify(employeeService).updateEmployeeIfUnchanged(argThat(employee -> employee.getVersion() == 2L
+							&& employee.getFirstName().equals("Ram")));
+	}
+	
+	
+	@DisplayName("JUnit test for patch employee REST API")
+	@Test
+	public void givenEmployeeChanges_whenPatchEmployee_thenReturn204() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee changes = Employee.builder().firstName("Ram").build();
+		given(employeeService.patchEmployee(eq(employeeId), any(Employee.class))).willReturn(true);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, patch("/api/employees/{id}", employeeId)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(objectMapper.writeValueAsString(changes)));
+		
+		//then - verify the result
+		response.andExpect(status().isNoContent()).andDo(print());
+	}
+	
+	@DisplayName("JUnit test for patch employee REST API without changes")
+	@Test
+	public void givenNoChanges_whenPatchEmployee_thenReturn400() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		given(employeeService.patchEmployee(eq(employeeId), any(Employee.class)))
+				.willThrow(new BadRequestException("Patch must change at least one of firstName, lastName or email"));
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, patch("/api/employees/{id}", employeeId)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content("{}"));
+		
+		//then - verify the result
+		response.andExpect(status().isBadRequest());
+	}
+	
+	@DisplayName("JUnit test for patch employee REST API negative scenario")
+	@Test
+	public void givenEmployeeChanges_whenPatchEmployee_thenReturn404NotFound() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee changes = Employee.builder().firstName("Ram").build();
+		given(employeeService.patchEmployee(eq(employeeId), any(Employee.class))).willReturn(false);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, patch("/api/employees/{id}", employeeId)
+										.contentType(MediaType.APPLICATION_JSON)
+										.content(objectMapper.writeValueAsString(changes)));
+		
+		//then - verify the result
+		response.andExpect(status().isNotFound()).andDo(print());
+	}
 	
 	@DisplayName("Junit for delete employee REST api")
 	@Test
@@ -201,13 +538,94 @@ public class EmployeeControllerTests {
 
 		//given - precondition or setup
 		long employeeId = 1L;
-		willDoNothing().given(employeeService).deleteEmployee(employeeId);
+		given(employeeService.deleteEmployee(employeeId)).willReturn(true);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employeeId));
+		
+		//then - verify the result
+		response.andExpect(status().isOk())
+				.andDo(print());
+	}
+	
+	@DisplayName("Junit for delete employee REST api negative scenario")
+	@Test
+	public void givenUnknownEmployeeId_whenDeleteEmployee_thenReturn404NotFound() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		given(employeeService.deleteEmployee(employeeId)).willReturn(false);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employeeId));
+		
+		//then - verify the result
+		response.andExpect(status().isNotFound())
+				.andDo(print());
+	}
+	
+	@DisplayName("Junit for delete employee REST api with the current ETag in If-Match")
+	@Test
+	public void givenCurrentETag_whenDeleteEmployee_thenDeletedOnlyAtThatVersion() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee savedEmployee = Employee.builder()
+							.id(employeeId)
+							.firstName("Ramesh")
+							.lastName("Fadatare")
+							.email("ramesh@gmail.com")
+							.version(4L)
+							.build();
+		given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+		given(employeeService.deleteEmployee(employeeId, 4L)).willReturn(true);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employeeId)
+										.header(HttpHeaders.IF_MATCH, "\"4\""));
+		
+		//then - verify the result
+		response.andExpect(status().isOk());
+		verify(employeeService, never()).deleteEmployee(employeeId);
+	}
+	
+	@DisplayName("Junit for delete employee REST api when the employee changed since the If-Match check")
+	@Test
+	public void givenConcurrentUpdate_whenDeleteEmployeeWithIfMatch_thenReturn412() throws Exception {
+
+		//given - precondition or setup
+		long employeeId = 1L;
+		Employee savedEmployee = Employee.builder()
+							.id(employeeId)
+							.firstName("Ramesh")
+							.lastName("Fadatare")
+							.email("ramesh@gmail.com")
+							.version(4L)
+							.build();
+		given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+		given(employeeService.deleteEmployee(employeeId, 4L)).willReturn(false);
+		
+		//when - action or behavior that we are going to test
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employeeId)
+										.header(HttpHeaders.IF_MATCH, "\"4\""));
+		
+		//then - verify the result
+		response.andExpect(status().isPreconditionFailed());
+	}
+	
+	@DisplayName("Junit for delete employees by ids REST api")
+	@Test
+	public void givenEmployeeIds_whenDeleteEmployees_thenReturn200() throws Exception {
+
+		//given - precondition or setup
+		given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(2);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
+		ResultActions response = performAsync(mockMvc, delete("/api/employees").param("ids", "1,2,3"));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
+				.andExpect(content().string(containsString("2 employees deleted")))
 				.andDo(print());
 	}
 	
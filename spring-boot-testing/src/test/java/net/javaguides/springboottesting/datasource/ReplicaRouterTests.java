@@ -0,0 +1,140 @@
+package net.javaguides.springboottesting.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRouterTests {
+
+	@Mock
+	private DataSource primary;
+
+	@Mock
+	private DataSource replica;
+
+	@Mock
+	private Connection primaryConnection;
+
+	@Mock
+	private Connection replicaConnection;
+
+	private ReplicaRouter replicaRouter;
+
+	@BeforeEach
+	public void setup() {
+		//no scheduled health check, the tests run it themselves
+		replicaRouter = new ReplicaRouter(primary, List.of(replica), 0);
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		ReplicaRouter.unpin();
+		replicaRouter.close();
+	}
+
+	@DisplayName("JUnit test for a connection of a read-only transaction")
+	@Test
+	public void givenReadOnlyTransaction_whenGetConnection_thenReplicaConnection() throws SQLException {
+
+		//given - precondition or setup
+		given(replica.getConnection()).willReturn(replicaConnection);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		//when - action or behavior that we are going to test
+		Connection connection = replicaRouter.dataSource().getConnection();
+
+		//then - verify the result
+		assertThat(connection).isSameAs(replicaConnection);
+	}
+
+	@DisplayName("JUnit test for a connection of a read-write transaction")
+	@Test
+	public void givenReadWriteTransaction_whenGetConnection_thenPrimaryConnection() throws SQLException {
+
+		//given - precondition or setup
+		given(primary.getConnection()).willReturn(primaryConnection);
+
+		//when - action or behavior that we are going to test
+		Connection connection = replicaRouter.dataSource().getConnection();
+
+		//then - verify the result
+		assertThat(connection).isSameAs(primaryConnection);
+	}
+
+	@DisplayName("JUnit test for a read pinned to the primary")
+	@Test
+	public void givenPinnedToPrimary_whenGetConnection_thenPrimaryConnection() throws SQLException {
+
+		//given - precondition or setup
+		given(primary.getConnection()).willReturn(primaryConnection);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		ReplicaRouter.pinToPrimary();
+
+		//when - action or behavior that we are going to test
+		Connection connection = replicaRouter.dataSource().getConnection();
+
+		//then - verify the result
+		assertThat(connection).isSameAs(primaryConnection);
+	}
+
+	@DisplayName("JUnit test for a read while the replica cannot hand out connections")
+	@Test
+	public void givenFailingReplica_whenGetConnection_thenPrimaryAndReplicaSkipped() throws SQLException {
+
+		//given - precondition or setup
+		given(replica.getConnection()).willThrow(new SQLException("Connection refused"));
+		given(primary.getConnection()).willReturn(primaryConnection);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		//when - action or behavior that we are going to test
+		Connection first = replicaRouter.dataSource().getConnection();
+		Connection second = replicaRouter.dataSource().getConnection();
+
+		//then - verify the result
+		assertThat(first).isSameAs(primaryConnection);
+		assertThat(second).isSameAs(primaryConnection);
+		assertThat(replicaRouter.getReplicasUp()).isZero();
+		verify(replica, times(1)).getConnection();
+	}
+
+	@DisplayName("JUnit test for the replica health check")
+	@Test
+	public void givenReplicaFailsThenPassesHealthCheck_whenGetConnection_thenBackOnReplica() throws SQLException {
+
+		//given - precondition or setup
+		given(replica.getConnection()).willReturn(replicaConnection);
+		given(replicaConnection.isValid(1)).willReturn(false, true);
+		given(primary.getConnection()).willReturn(primaryConnection);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		//when - action or behavior that we are going to test
+		replicaRouter.checkReplicas();
+		Connection whileDown = replicaRouter.dataSource().getConnection();
+		replicaRouter.checkReplicas();
+		Connection afterRecovery = replicaRouter.dataSource().getConnection();
+
+		//then - verify the result
+		assertThat(whileDown).isSameAs(primaryConnection);
+		assertThat(afterRecovery).isSameAs(replicaConnection);
+		assertThat(replicaRouter.getReplicasUp()).isEqualTo(1);
+	}
+}
@@ -1,5 +1,6 @@
 package net.javaguides.springboottesting.integration;
 
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
 import static org.hamcrest.CoreMatchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -50,9 +52,14 @@ public class EmployeeControllerIT {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Autowired
+	private CacheManager cacheManager;
+	
 	@BeforeEach
 	void setup() {
 		employeeRepository.deleteAll();
+		//deleteAll goes around the service, so drop whatever the employee cache still holds
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
 	}
 	
 	@Test
@@ -68,7 +75,7 @@ public class EmployeeControllerIT {
 //		.willAnswer(invocation->invocation.getArgument(0));
 		
 		//when - action or behavior that we are going test
-		ResultActions response = mockMvc.perform(post("/api/employees")
+		ResultActions response = performAsync(mockMvc, post("/api/employees")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(objectMapper.writeValueAsString(employee)));
 		
@@ -92,7 +99,7 @@ public class EmployeeControllerIT {
 //		given(employeeService.getAllEmployees()).willReturn(listOfEmployees); --> no need to mock
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees"));
+		ResultActions response = performAsync(mockMvc, get("/api/employees"));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -114,7 +121,7 @@ public class EmployeeControllerIT {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -138,7 +145,7 @@ public class EmployeeControllerIT {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", 1l));//send any invalid id
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", 1l));//send any invalid id
 		
 		//then - verify the result
 		response.andExpect(status().isNotFound()).andDo(print());
@@ -165,7 +172,7 @@ public class EmployeeControllerIT {
 //		given(employeeService.updateEmployee(any(Employee.class))).willAnswer(invocation -> invocation.getArgument(0));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId())
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", savedEmployee.getId())
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -193,7 +200,7 @@ public class EmployeeControllerIT {
 		employeeRepository.save(savedEmployee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", 1L)
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", 1L)
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -214,7 +221,7 @@ public class EmployeeControllerIT {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -1,5 +1,6 @@
 package net.javaguides.springboottesting.integration;
 
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
@@ -22,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -45,9 +47,14 @@ public class EmployeeControllerITests {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Autowired
+	private CacheManager cacheManager;
+	
 	@BeforeEach
 	void setup() {
 		employeeRepository.deleteAll();
+		//deleteAll goes around the service, so drop whatever the employee cache still holds
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
 	}
 	
 	@Test
@@ -63,7 +70,7 @@ public class EmployeeControllerITests {
 //		.willAnswer(invocation->invocation.getArgument(0));
 		
 		//when - action or behavior that we are going test
-		ResultActions response = mockMvc.perform(post("/api/employees")
+		ResultActions response = performAsync(mockMvc, post("/api/employees")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(objectMapper.writeValueAsString(employee)));
 		
@@ -87,7 +94,7 @@ public class EmployeeControllerITests {
 //		given(employeeService.getAllEmployees()).willReturn(listOfEmployees); --> no need to mock
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees"));
+		ResultActions response = performAsync(mockMvc, get("/api/employees"));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -109,7 +116,7 @@ public class EmployeeControllerITests {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -133,7 +140,7 @@ public class EmployeeControllerITests {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(get("/api/employees/{id}", 1l));//send any invalid id
+		ResultActions response = performAsync(mockMvc, get("/api/employees/{id}", 1l));//send any invalid id
 		
 		//then - verify the result
 		response.andExpect(status().isNotFound()).andDo(print());
@@ -160,7 +167,7 @@ public class EmployeeControllerITests {
 //		given(employeeService.updateEmployee(any(Employee.class))).willAnswer(invocation -> invocation.getArgument(0));
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId())
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", savedEmployee.getId())
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -188,7 +195,7 @@ public class EmployeeControllerITests {
 		employeeRepository.save(savedEmployee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(put("/api/employees/{id}", 1L)
+		ResultActions response = performAsync(mockMvc, put("/api/employees/{id}", 1L)
 										.contentType(MediaType.APPLICATION_JSON)
 										.content(objectMapper.writeValueAsString(updatedEmployee)));
 		
@@ -209,7 +216,7 @@ public class EmployeeControllerITests {
 		employeeRepository.save(employee);
 		
 		//when - action or behavior that we are going to test
-		ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employee.getId()));
+		ResultActions response = performAsync(mockMvc, delete("/api/employees/{id}", employee.getId()));
 		
 		//then - verify the result
 		response.andExpect(status().isOk())
@@ -0,0 +1,338 @@
+package net.javaguides.springboottesting.integration;
+
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertDeleteCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertInsertCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertSelectCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertStatementCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertUpdateCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.reset;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeeTicket;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.EmployeeService;
+import net.javaguides.springboottesting.service.impl.EmployeeCreateQueue;
+import net.javaguides.springboottesting.sql.SqlStatementCountConfig;
+
+//what one request to each endpoint costs, end to end through the controller, the caches and the executor.
+//given steps go through the service so the email filter and the search index know the rows like in production
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:statement-count;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureMockMvc
+@Import(SqlStatementCountConfig.class)
+public class EmployeeControllerStatementCountITests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EmployeeCreateQueue employeeCreateQueue;
+
+	private Employee savedEmployee;
+
+	@BeforeEach
+	void setup() {
+		//through the service, the search index would otherwise still hold the rows of the previous test
+		employeeService.deleteEmployees(employeeRepository.findAll().stream().map(Employee::getId).collect(Collectors.toList()));
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		savedEmployee = employeeService.saveEmployee(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+	}
+
+	@DisplayName("JUnit test for the statements of create employee REST API")
+	@Test
+	public void givenNewEmail_whenCreateEmployee_thenOnlyInsert() throws Exception {
+
+		//given - precondition or setup
+		Employee employee = new Employee("Tony", "Stark", "tony@gmail.com");
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, post("/api/employees")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(employee)))
+				.andExpect(status().isCreated());
+
+		//then - verify the result
+		//the email filter has never seen the email, so no duplicate check
+		assertInsertCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of create employees REST API")
+	@Test
+	public void givenNewEmails_whenCreateEmployees_thenOneBatchedInsert() throws Exception {
+
+		//given - precondition or setup
+		List<Employee> employees = List.of(new Employee("Tony", "Stark", "tony@gmail.com"),
+				new Employee("Bruce", "Banner", "bruce@gmail.com"),
+				new Employee("Natasha", "Romanoff", "natasha@gmail.com"));
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, post("/api/employees/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(employees)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.size()", is(employees.size())));
+
+		//then - verify the result
+		assertInsertCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of async create employee REST API")
+	@Test
+	public void givenEmployee_whenCreateEmployeeAsyncAndGetTicket_thenNoStatementsOnRequest() throws Exception {
+
+		//given - precondition or setup
+		Employee employee = new Employee("Tony", "Stark", "tony@gmail.com");
+		reset();
+
+		//when - action or behavior that we are going to test
+		String response = mockMvc.perform(post("/api/employees").param("async", "true")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(employee)))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		String ticket = JsonPath.read(response, "$.id");
+		mockMvc.perform(get("/api/employees/tickets/{ticket}", ticket)).andExpect(status().isOk());
+
+		//then - verify the result
+		//the group insert runs on the queue's writer thread, EmployeeServiceStatementCountTests budgets it
+		assertStatementCount(0);
+		//let the insert land before the next test empties the table
+		awaitDone(ticket);
+	}
+
+	@DisplayName("JUnit test for the statements of get all employees REST API")
+	@Test
+	public void givenEmployees_whenGetAllEmployees_thenOneSelect() throws Exception {
+
+		//given - precondition or setup
+		employeeService.saveEmployee(new Employee("Tony", "Stark", "tony@gmail.com"));
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, get("/api/employees"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(2)));
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of get employee by id REST API")
+	@Test
+	public void givenSavedEmployee_whenGetEmployeeById_thenNoStatements() throws Exception {
+
+		//given - precondition or setup
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, get("/api/employees/{id}", savedEmployee.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email", is(savedEmployee.getEmail())));
+
+		//then - verify the result
+		//served from the second-level cache the insert filled
+		assertStatementCount(0);
+	}
+
+	@DisplayName("JUnit test for the statements of update employee REST API")
+	@Test
+	public void givenSavedEmployee_whenUpdateEmployee_thenOnlyUpdate() throws Exception {
+
+		//given - precondition or setup
+		Employee updatedEmployee = new Employee("Ram", "Jadav", "ram@gmail.com");
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, put("/api/employees/{id}", savedEmployee.getId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(updatedEmployee)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email", is(updatedEmployee.getEmail())));
+
+		//then - verify the result
+		//both the lookup and the merge are second-level cache hits
+		assertUpdateCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of update employee REST API with If-Match")
+	@Test
+	public void givenMatchingETag_whenUpdateEmployee_thenOnlyUpdate() throws Exception {
+
+		//given - precondition or setup
+		Employee updatedEmployee = new Employee("Ram", "Jadav", "ram@gmail.com");
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, put("/api/employees/{id}", savedEmployee.getId())
+						.header(HttpHeaders.IF_MATCH, "\"" + savedEmployee.getVersion() + "\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(updatedEmployee)))
+				.andExpect(status().isOk());
+
+		//then - verify the result
+		assertUpdateCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of patch employee REST API")
+	@Test
+	public void givenSavedEmployee_whenPatchEmployee_thenOnlyUpdate() throws Exception {
+
+		//given - precondition or setup
+		Employee changes = Employee.builder().firstName("Ram").build();
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, patch("/api/employees/{id}", savedEmployee.getId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(changes)))
+				.andExpect(status().isNoContent());
+
+		//then - verify the result
+		//nothing is read back, the search index patches its copy in memory
+		assertUpdateCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of delete employee REST API")
+	@Test
+	public void givenSavedEmployee_whenDeleteEmployee_thenOnlyDelete() throws Exception {
+
+		//given - precondition or setup
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, delete("/api/employees/{id}", savedEmployee.getId()))
+				.andExpect(status().isOk());
+
+		//then - verify the result
+		assertDeleteCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of delete employee REST API with If-Match")
+	@Test
+	public void givenMatchingETag_whenDeleteEmployee_thenOnlyDelete() throws Exception {
+
+		//given - precondition or setup
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, delete("/api/employees/{id}", savedEmployee.getId())
+						.header(HttpHeaders.IF_MATCH, "\"" + savedEmployee.getVersion() + "\""))
+				.andExpect(status().isOk());
+
+		//then - verify the result
+		assertDeleteCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of delete employees REST API")
+	@Test
+	public void givenSavedEmployees_whenDeleteEmployees_thenOneDelete() throws Exception {
+
+		//given - precondition or setup
+		Employee other = employeeService.saveEmployee(new Employee("Tony", "Stark", "tony@gmail.com"));
+		reset();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, delete("/api/employees").param("ids", savedEmployee.getId() + "," + other.getId()))
+				.andExpect(status().isOk());
+
+		//then - verify the result
+		assertDeleteCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of export employees REST API")
+	@Test
+	public void givenEmployees_whenExportEmployees_thenOneSelect() throws Exception {
+
+		//given - precondition or setup
+		employeeService.saveEmployee(new Employee("Tony", "Stark", "tony@gmail.com"));
+		reset();
+
+		//when - action or behavior that we are going to test
+		mockMvc.perform(get("/api/employees/export"))
+				.andExpect(status().isOk());
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of search employees REST API")
+	@Test
+	public void givenEmployees_whenSearchEmployees_thenNoStatements() throws Exception {
+
+		//given - precondition or setup
+		reset();
+
+		//when - action or behavior that we are going to test
+		mockMvc.perform(get("/api/employees/search").param("q", "rame"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(1)));
+
+		//then - verify the result
+		//served from the in-memory search index
+		assertStatementCount(0);
+	}
+
+	private void awaitDone(String ticketId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (employeeCreateQueue.getTicket(ticketId).get().getStatus() == EmployeeTicket.Status.PENDING) {
+			assertThat(System.nanoTime()).as("ticket %s still pending", ticketId).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package net.javaguides.springboottesting.integration;
 
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertSelectCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertStatementCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.reset;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.List;
@@ -11,12 +14,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import net.javaguides.springboottesting.model.Employee;
 import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.sql.SqlStatementCountConfig;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace=AutoConfigureTestDatabase.Replace.NONE)
+@Import(SqlStatementCountConfig.class)
 public class EmployeeRepositoryITest {
 	@Autowired
 	private EmployeeRepository employeeRepository;
@@ -150,7 +156,8 @@ public class EmployeeRepositoryITest {
 
 		//given - precondition or setup
 		//Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
-		employeeRepository.save(employee);
+		employeeRepository.saveAndFlush(employee);
+		reset();
 
 		String firstName = "Ramesh";
 		String lastName = "Fadatare";
@@ -160,6 +167,8 @@ public class EmployeeRepositoryITest {
 		
 		//then - verify the result
 		assertThat(savedEmployee).isNotNull();
+		assertSelectCount(1);
+		assertStatementCount(1);
 	}
 	
 	@DisplayName("JUnit test for custom query using JPQL with named Parameters")
@@ -168,7 +177,8 @@ public class EmployeeRepositoryITest {
 
 		//given - precondition or setup
 		//Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
-		employeeRepository.save(employee);
+		employeeRepository.saveAndFlush(employee);
+		reset();
 
 		String firstName = "Ramesh";
 		String lastName = "Fadatare";
@@ -178,6 +188,8 @@ public class EmployeeRepositoryITest {
 		
 		//then - verify the result
 		assertThat(savedEmployee).isNotNull();
+		assertSelectCount(1);
+		assertStatementCount(1);
 	}
 	
 	@DisplayName("JUnit test for custom query using native query with named Parameters")
@@ -186,7 +198,8 @@ public class EmployeeRepositoryITest {
 
 		//given - precondition or setup
 		//Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
-		employeeRepository.save(employee);
+		employeeRepository.saveAndFlush(employee);
+		reset();
 
 		String firstName = "Ramesh";
 		String lastName = "Fadatare";
@@ -196,5 +209,7 @@ public class EmployeeRepositoryITest {
 		
 		//then - verify the result
 		assertThat(savedEmployee).isNotNull();
+		assertSelectCount(1);
+		assertStatementCount(1);
 	}
 }
@@ -0,0 +1,63 @@
+package net.javaguides.springboottesting.integration;
+
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.javaguides.springboottesting.model.Employee;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:fast-startup;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@ActiveProfiles("fast-startup")
+@AutoConfigureMockMvc
+public class FastStartupITests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ConfigurableApplicationContext context;
+
+	@DisplayName("JUnit test for create and get all employees REST API with lazy beans and deferred JPA bootstrap")
+	@Test
+	public void givenFastStartupProfile_whenCreateAndGetAllEmployees_thenServed() throws Exception {
+
+		//given - precondition or setup
+		assertThat(context.getBeanFactory().getBeanDefinition("employeeServiceImpl").isLazyInit()).isTrue();
+		assertThat(context.getBeanFactory().getBeanDefinition("entityManagerFactory").isLazyInit()).isFalse();
+
+		//when - action or behavior that we are going to test
+		performAsync(mockMvc, post("/api/employees")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"))))
+				.andExpect(status().isCreated());
+
+		//then - verify the result
+		performAsync(mockMvc, get("/api/employees"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(1)))
+				.andExpect(jsonPath("$[0].email", is("ramesh@gmail.com")));
+	}
+}
@@ -0,0 +1,119 @@
+package net.javaguides.springboottesting.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.javaguides.springboottesting.model.Employee;
+
+//runs the executable of the native maven profile (mvn -P native verify) against a file-backed H2 database
+@EnabledIfSystemProperty(named = "native.executable", matches = ".+")
+public class NativeImageSmokeIT {
+
+	private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(1))
+			.build();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path databaseDir;
+
+	private Process process;
+
+	private String baseUrl;
+
+	@BeforeEach
+	void setup() throws Exception {
+		int port = freePort();
+		baseUrl = "http://localhost:" + port + "/api/employees";
+		process = new ProcessBuilder(System.getProperty("native.executable"),
+				"--server.port=" + port,
+				"--spring.profiles.active=native",
+				"--spring.datasource.url=jdbc:h2:file:" + databaseDir.resolve("employees").toAbsolutePath(),
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+				.redirectErrorStream(true)
+				.redirectOutput(databaseDir.resolve("native.log").toFile())
+				.start();
+
+		long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+		while (true) {
+			assertThat(process.isAlive()).as("native executable exited, see %s", databaseDir.resolve("native.log")).isTrue();
+			assertThat(System.nanoTime()).as("native executable did not answer in time").isLessThan(deadline);
+			try {
+				if (send(HttpRequest.newBuilder(URI.create(baseUrl)).GET()).statusCode() == 200)
+					break;
+			} catch (IOException e) {
+				//not listening yet
+			}
+			Thread.sleep(50);
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		process.destroy();
+		if (!process.waitFor(30, TimeUnit.SECONDS))
+			process.destroyForcibly().waitFor();
+	}
+
+	@DisplayName("Smoke test for create, get by id and search REST APIs of the native executable")
+	@Test
+	public void givenNativeExecutable_whenCreateEmployee_thenFoundByIdAndSearch() throws Exception {
+
+		//given - precondition or setup
+		Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
+
+		//when - action or behavior that we are going to test
+		HttpResponse<String> created = send(HttpRequest.newBuilder(URI.create(baseUrl))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(employee))));
+
+		//then - verify the result
+		assertThat(created.statusCode()).isEqualTo(201);
+		Employee savedEmployee = objectMapper.readValue(created.body(), Employee.class);
+		assertThat(savedEmployee.getId()).isPositive();
+
+		HttpResponse<String> byId = send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + savedEmployee.getId())).GET());
+		assertThat(byId.statusCode()).isEqualTo(200);
+		assertThat(objectMapper.readValue(byId.body(), Employee.class).getEmail()).isEqualTo("ramesh@gmail.com");
+
+		HttpResponse<String> search = send(HttpRequest.newBuilder(URI.create(baseUrl + "/search?q=fad")).GET());
+		assertThat(search.statusCode()).isEqualTo(200);
+		List<Employee> found = objectMapper.readValue(search.body(), new TypeReference<List<Employee>>() {});
+		assertThat(found).extracting(Employee::getId).containsExactly(savedEmployee.getId());
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		return httpClient.send(request.timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
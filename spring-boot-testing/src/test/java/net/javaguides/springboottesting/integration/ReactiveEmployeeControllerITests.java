@@ -0,0 +1,188 @@
+package net.javaguides.springboottesting.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import io.r2dbc.spi.ConnectionFactory;
+import net.javaguides.springboottesting.model.Employee;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive-employees;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"spring.flyway.url=jdbc:h2:mem:reactive-employees;DB_CLOSE_DELAY=-1",
+		"spring.flyway.user=sa",
+		"spring.flyway.password=" })
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeControllerITests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ConnectionFactory connectionFactory;
+
+	@BeforeEach
+	void setup() {
+		DatabaseClient.create(connectionFactory).sql("delete from employees").fetch().rowsUpdated().block();
+	}
+
+	@DisplayName("JUnit test for create and get employee reactive REST API")
+	@Test
+	public void givenEmployeeObject_whenCreateEmployee_thenReturnSavedEmployee() {
+
+		//given - precondition or setup
+		Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
+
+		//when - action or behavior that we are going to test
+		Employee savedEmployee = create(employee);
+
+		//then - verify the result
+		assertThat(savedEmployee.getId()).isGreaterThan(0);
+		webTestClient.get().uri("/api/employees/{id}", savedEmployee.getId())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+				.jsonPath("$.email").isEqualTo(employee.getEmail());
+	}
+
+	@DisplayName("JUnit test for create employee reactive REST API with a taken email")
+	@Test
+	public void givenExistingEmail_whenCreateEmployee_thenReturn409() {
+
+		//given - precondition or setup
+		create(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		WebTestClient.ResponseSpec response = webTestClient.post().uri("/api/employees")
+				.bodyValue(new Employee("Ram", "Jadav", "ramesh@gmail.com"))
+				.exchange();
+
+		//then - verify the result
+		response.expectStatus().isEqualTo(409);
+	}
+
+	@DisplayName("JUnit test for create employees batch and get a page of employees reactive REST API")
+	@Test
+	public void givenEmployeeBatch_whenGetAllEmployees_thenPagedWithLinkHeader() {
+
+		//given - precondition or setup
+		List<Employee> employees = IntStream.range(0, 3)
+				.mapToObj(i -> new Employee("Ramesh" + i, "Fadatare", "ramesh" + i + "@gmail.com"))
+				.collect(Collectors.toList());
+		webTestClient.post().uri("/api/employees/batch")
+				.bodyValue(employees)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBodyList(Employee.class).hasSize(3);
+
+		//when - action or behavior that we are going to test
+		WebTestClient.ResponseSpec response = webTestClient.get().uri("/api/employees?size=2").exchange();
+
+		//then - verify the result
+		response.expectStatus().isOk()
+				.expectHeader().value(HttpHeaders.LINK, link -> assertThat(link).contains("cursor=").endsWith("rel=\"next\""))
+				.expectBodyList(Employee.class).hasSize(2);
+	}
+
+	@DisplayName("JUnit test for export employees reactive REST API")
+	@Test
+	public void givenEmployeeList_whenExportEmployees_thenNdjsonInIdOrder() {
+
+		//given - precondition or setup
+		Employee employee1 = create(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		Employee employee2 = create(new Employee("Tony", "Stark", "tony@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		List<Employee> exported = webTestClient.get().uri("/api/employees/export")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(Employee.class)
+				.getResponseBody()
+				.collectList()
+				.block();
+
+		//then - verify the result
+		assertThat(exported).extracting(Employee::getId).containsExactly(employee1.getId(), employee2.getId());
+	}
+
+	@DisplayName("JUnit test for update and patch employee reactive REST API")
+	@Test
+	public void givenSavedEmployee_whenUpdateAndPatchEmployee_thenChanged() {
+
+		//given - precondition or setup
+		Employee savedEmployee = create(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		webTestClient.put().uri("/api/employees/{id}", savedEmployee.getId())
+				.bodyValue(new Employee("Ram", "Jadav", "ram@gmail.com"))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.version").isEqualTo(savedEmployee.getVersion() + 1);
+		webTestClient.patch().uri("/api/employees/{id}", savedEmployee.getId())
+				.bodyValue(Employee.builder().lastName("Fadatare").build())
+				.exchange()
+				.expectStatus().isNoContent();
+
+		//then - verify the result
+		webTestClient.get().uri("/api/employees/{id}", savedEmployee.getId())
+				.exchange()
+				.expectBody()
+				.jsonPath("$.firstName").isEqualTo("Ram")
+				.jsonPath("$.lastName").isEqualTo("Fadatare")
+				.jsonPath("$.email").isEqualTo("ram@gmail.com")
+				.jsonPath("$.version").isEqualTo(savedEmployee.getVersion() + 2);
+		webTestClient.put().uri("/api/employees/{id}", savedEmployee.getId() + 1000)
+				.bodyValue(new Employee("Ram", "Jadav", "ram@gmail.com"))
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@DisplayName("JUnit test for delete employee reactive REST API")
+	@Test
+	public void givenSavedEmployee_whenDeleteEmployee_thenDeletedOnce() {
+
+		//given - precondition or setup
+		Employee savedEmployee = create(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		webTestClient.delete().uri("/api/employees/{id}", savedEmployee.getId())
+				.exchange()
+				.expectStatus().isOk();
+
+		//then - verify the result
+		webTestClient.delete().uri("/api/employees/{id}", savedEmployee.getId())
+				.exchange()
+				.expectStatus().isNotFound();
+		webTestClient.get().uri("/api/employees/{id}", savedEmployee.getId())
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	private Employee create(Employee employee) {
+		return webTestClient.post().uri("/api/employees")
+				.bodyValue(employee)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Employee.class)
+				.returnResult()
+				.getResponseBody();
+	}
+}
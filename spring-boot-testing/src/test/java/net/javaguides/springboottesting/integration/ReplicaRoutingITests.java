@@ -0,0 +1,107 @@
+package net.javaguides.springboottesting.integration;
+
+import static net.javaguides.springboottesting.controller.AsyncMockMvc.performAsync;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.servlet.http.Cookie;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.javaguides.springboottesting.datasource.ReadYourWritesInterceptor;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+
+//two embedded databases that are never replicated, so where a row is found tells which one served the read
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=" + ReplicaRoutingITests.PRIMARY_URL,
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.cache.type=none",
+		"employee.datasource.replica-urls=" + ReplicaRoutingITests.REPLICA_URL,
+		"employee.datasource.read-your-writes-ms=60000" })
+@AutoConfigureMockMvc
+public class ReplicaRoutingITests {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void setup() {
+		employeeRepository.deleteAll();
+
+		DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+		replica = new JdbcTemplate(replicaDataSource);
+		replica.execute("drop all objects");
+		//the replica gets the schema the primary was migrated to
+		Flyway.configure().dataSource(replicaDataSource).locations("classpath:db/migration/h2").load().migrate();
+	}
+
+	@DisplayName("JUnit test for get all employees REST API served by the replica")
+	@Test
+	public void givenEmployeeOnReplicaOnly_whenGetAllEmployees_thenReadFromReplica() throws Exception {
+
+		//given - precondition or setup
+		employeeRepository.save(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		replica.update("insert into employees (id, first_name, last_name, email) values (1000, 'Tony', 'Stark', 'tony@gmail.com')");
+
+		//when - action or behavior that we are going to test
+		//then - verify the result
+		performAsync(mockMvc, get("/api/employees"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(1)))
+				.andExpect(jsonPath("$[0].email", is("tony@gmail.com")));
+	}
+
+	@DisplayName("JUnit test for get all employees REST API right after a create with read-your-writes")
+	@Test
+	public void givenCreatedEmployee_whenGetAllEmployeesWithLastWriteCookie_thenReadFromPrimary() throws Exception {
+
+		//given - precondition or setup
+		Cookie lastWrite = performAsync(mockMvc, post("/api/employees")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"))))
+				.andExpect(status().isCreated())
+				.andExpect(cookie().exists(ReadYourWritesInterceptor.LAST_WRITE_COOKIE))
+				.andReturn().getResponse().getCookie(ReadYourWritesInterceptor.LAST_WRITE_COOKIE);
+
+		//when - action or behavior that we are going to test
+		//then - verify the result
+		performAsync(mockMvc, get("/api/employees"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(0)));
+		performAsync(mockMvc, get("/api/employees").cookie(lastWrite))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size()", is(1)))
+				.andExpect(jsonPath("$[0].email", is("ramesh@gmail.com")));
+	}
+}
@@ -0,0 +1,94 @@
+package net.javaguides.springboottesting.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.EmployeeService;
+import net.javaguides.springboottesting.service.impl.EmployeeEmailFilter;
+import net.javaguides.springboottesting.service.impl.EmployeeSearchIndex;
+import net.javaguides.springboottesting.service.impl.EmployeeServiceImpl;
+import net.javaguides.springboottesting.service.impl.EmployeeUpdateRetryPolicy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({ EmployeeTimingAspect.class, EmployeeServiceImpl.class, EmployeeEmailFilter.class, EmployeeSearchIndex.class,
+		EmployeeUpdateRetryPolicy.class })
+public class EmployeeTimingAspectTests {
+
+	@TestConfiguration
+	static class PrometheusRegistryConfig {
+
+		@Bean
+		public PrometheusMeterRegistry meterRegistry() {
+			return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		}
+	}
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private PrometheusMeterRegistry meterRegistry;
+
+	@DisplayName("JUnit test for timers around service and repository calls")
+	@Test
+	public void givenEmployee_whenGetEmployeeById_thenServiceAndRepositoryTimed() {
+
+		//given - precondition or setup
+		Employee employee = employeeRepository.save(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		employeeService.getEmployeeById(employee.getId());
+		employeeRepository.findByEmail(employee.getEmail());
+
+		//then - verify the result
+		assertThat(timerCount(EmployeeTimingAspect.SERVICE_TIMER, "getEmployeeById", "SUCCESS", "none")).isEqualTo(1);
+		assertThat(timerCount(EmployeeTimingAspect.REPOSITORY_TIMER, "findById", "SUCCESS", "none")).isEqualTo(1);
+		assertThat(timerCount(EmployeeTimingAspect.REPOSITORY_TIMER, "findByEmail", "SUCCESS", "none")).isEqualTo(1);
+		assertThat(meterRegistry.scrape()).contains("employees_service_seconds_bucket{exception=\"none\",method=\"getEmployeeById\"");
+	}
+
+	@DisplayName("JUnit test for timers around failing service calls")
+	@Test
+	public void givenTooManyIds_whenDeleteEmployees_thenTimedAsError() {
+
+		//given - precondition or setup
+		List<Long> ids = LongStream.rangeClosed(1, EmployeeServiceImpl.MAX_DELETE_IDS + 1).boxed().collect(Collectors.toList());
+
+		//when - action or behavior that we are going to test
+		assertThatThrownBy(() -> employeeService.deleteEmployees(ids)).isInstanceOf(BadRequestException.class);
+
+		//then - verify the result
+		assertThat(timerCount(EmployeeTimingAspect.SERVICE_TIMER, "deleteEmployees", "ERROR", "BadRequestException")).isEqualTo(1);
+	}
+
+	private long timerCount(String name, String method, String outcome, String exception) {
+		return meterRegistry.get(name)
+				.tag("method", method)
+				.tag("outcome", outcome)
+				.tag("exception", exception)
+				.timer().count();
+	}
+}
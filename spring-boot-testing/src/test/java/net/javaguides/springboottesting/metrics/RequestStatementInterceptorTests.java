@@ -0,0 +1,92 @@
+package net.javaguides.springboottesting.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+
+public class RequestStatementInterceptorTests {
+
+	private static final String SELECT_BY_ID = "select * from employees where id=?";
+
+	private SqlStatementCounter sqlStatementCounter;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private RequestStatementInterceptor interceptor;
+
+	@BeforeEach
+	public void setup() {
+		sqlStatementCounter = new SqlStatementCounter();
+		meterRegistry = new SimpleMeterRegistry();
+		interceptor = new RequestStatementInterceptor(sqlStatementCounter, meterRegistry, 2);
+	}
+
+	@DisplayName("JUnit test for statement counting with a repeated select")
+	@Test
+	public void givenReadBeforeMerge_whenStatementsRun_thenCountedAndRepeatedReported() {
+
+		//given - precondition or setup
+		sqlStatementCounter.start();
+
+		//when - action or behavior that we are going to test
+		runReadBeforeMerge();
+		SqlStatementCounter.Statements statements = sqlStatementCounter.stop();
+
+		//then - verify the result
+		assertThat(statements.getTotal()).isEqualTo(3);
+		assertThat(statements.getCount(QueryType.SELECT)).isEqualTo(2);
+		assertThat(statements.getCount(QueryType.UPDATE)).isEqualTo(1);
+		assertThat(statements.getRepeated()).containsOnlyKeys(SELECT_BY_ID).containsEntry(SELECT_BY_ID, 2);
+	}
+
+	@DisplayName("JUnit test for the statement summary of a request")
+	@Test
+	public void givenRequest_whenCompleted_thenStatementsRecordedPerUri() {
+
+		//given - precondition or setup
+		MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/employees/1");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/employees/{id}");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//when - action or behavior that we are going to test
+		interceptor.preHandle(request, response, null);
+		runReadBeforeMerge();
+		interceptor.afterCompletion(request, response, null, null);
+
+		//then - verify the result
+		DistributionSummary summary = meterRegistry.get(RequestStatementInterceptor.STATEMENTS_SUMMARY)
+				.tag("method", "PUT").tag("uri", "/api/employees/{id}").summary();
+		assertThat(summary.count()).isEqualTo(1);
+		assertThat(summary.totalAmount()).isEqualTo(3.0);
+		assertThat(sqlStatementCounter.stop()).isNull();
+	}
+
+	@DisplayName("JUnit test for statements outside of a request")
+	@Test
+	public void givenNoRequest_whenStatementRuns_thenNotCounted() {
+
+		//when - action or behavior that we are going to test
+		sqlStatementCounter.afterQuery(null, List.of(new QueryInfo(SELECT_BY_ID)));
+
+		//then - verify the result
+		assertThat(sqlStatementCounter.stop()).isNull();
+	}
+
+	private void runReadBeforeMerge() {
+		sqlStatementCounter.afterQuery(null, List.of(new QueryInfo(SELECT_BY_ID)));
+		sqlStatementCounter.afterQuery(null, List.of(new QueryInfo(SELECT_BY_ID)));
+		sqlStatementCounter.afterQuery(null, List.of(new QueryInfo("update employees set first_name=? where id=?")));
+	}
+}
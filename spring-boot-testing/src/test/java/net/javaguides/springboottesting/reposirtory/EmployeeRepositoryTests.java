@@ -1,26 +1,48 @@
 package net.javaguides.springboottesting.reposirtory;
 
 //import org.assertj.core.api.Assertions;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertDeleteCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertSelectCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertStatementCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.reset;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.EntityManagerFactory;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.PageRequest;
 
 import net.javaguides.springboottesting.model.Employee;
 import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.sql.SqlStatementCountConfig;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(SqlStatementCountConfig.class)
 public class EmployeeRepositoryTests {
 
 	@Autowired
 	private EmployeeRepository employeeRepository;
 	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@Autowired
+	private TestEntityManager testEntityManager;
+	
 	private Employee employee;
 	
 	@BeforeEach
@@ -76,6 +98,41 @@ public class EmployeeRepositoryTests {
 		assertThat(employeeList.size()).isEqualTo(5);
 	}
 	
+	@DisplayName("JUnit test case for getting a keyset page of employees")
+	@Test
+	public void givenEmployeeList_whenFindPageAfterId_thenNextEmployeesInIdOrder() {
+		//given - precondition or setup
+		Employee employee1 = employeeRepository.save(new Employee("Ramesh", "Ramesh", "ramesh@gmail.com"));
+		Employee employee2 = employeeRepository.save(new Employee("Kamesh", "Kamesh", "kamesh@gmail.com"));
+		Employee employee3 = employeeRepository.save(new Employee("Jamesh", "Jamesh", "jamesh@gmail.com"));
+		employeeRepository.flush();
+		reset();
+		
+		//when - action or behavior that we are going to test
+		List<Employee> employeeList = employeeRepository.findPageAfterId(employee1.getId(), PageRequest.of(0, 2));
+		
+		//then - verify the result
+		assertThat(employeeList).extracting(Employee::getId).containsExactly(employee2.getId(), employee3.getId());
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+	
+	@DisplayName("JUnit test case for scrolling all employees through a stateless session")
+	@Test
+	public void givenEmployeeList_whenScrollAll_thenDetachedEmployeesInIdOrder() {
+		//given - precondition or setup
+		Employee employee1 = employeeRepository.save(new Employee("Ramesh", "Ramesh", "ramesh@gmail.com"));
+		Employee employee2 = employeeRepository.save(new Employee("Kamesh", "Kamesh", "kamesh@gmail.com"));
+		
+		//when - action or behavior that we are going to test
+		List<Employee> employees = new ArrayList<>();
+		employeeRepository.scrollAll(employees::add);
+		
+		//then - verify the result
+		assertThat(employees).extracting(Employee::getId).containsExactly(employee1.getId(), employee2.getId());
+		assertThat(employees).noneMatch(testEntityManager.getEntityManager()::contains);
+	}
+	
 	@DisplayName("JUnit test for get employee by id operation")
 	@Test
 	public void givenEmployeeObject_whenFindById_thenReturnEmployeeObject() {
@@ -108,6 +165,48 @@ public class EmployeeRepositoryTests {
 
 	}
 	
+	@DisplayName("JUnit test for finding existing emails operation")
+	@Test
+	public void givenEmployeeObject_whenFindExistingEmails_thenReturnOnlyExistingEmails() {
+
+		//given - precondition or setup
+		employeeRepository.saveAndFlush(employee);
+		reset();
+		
+		//when - action or behavior that we are going to test
+		List<String> existingEmails = employeeRepository.findExistingEmails(List.of(employee.getEmail(), "tony@gmail.com"));
+		
+		//then - verify the result
+		assertThat(existingEmails).containsExactly(employee.getEmail());
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+	
+	//the natural id cache is filled when the inserting transaction completes, so this one runs without the test transaction
+	@DisplayName("JUnit test for get employee by email through the natural id cache")
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void givenSavedEmployee_whenFindByEmail_thenNaturalIdCacheHit() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		
+		try {
+			//when - action or behavior that we are going to test
+			Employee savedEmployee = employeeRepository.findByEmail(employee.getEmail()).get();
+			
+			//then - verify the result
+			assertThat(savedEmployee.getId()).isEqualTo(employee.getId());
+			assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+			assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+			assertThat(statistics.getPrepareStatementCount()).isZero();
+		} finally {
+			employeeRepository.deleteAll();
+		}
+	}
+	
 	@DisplayName("JUnit test for update employee operation")
 	@Test
 	public void givenEmploeeObject_whenUpdateEmployee_thenReturnUpdatedEmployee() {
@@ -127,6 +226,46 @@ public class EmployeeRepositoryTests {
 		assertThat(updatedEmployee.getFirstName()).isEqualTo("Ram");
 	}
 	
+	@DisplayName("JUnit test for patch employee operation")
+	@Test
+	public void givenEmployeeObject_whenPatchById_thenOnlyGivenFieldsUpdated() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+
+		//when - action or behavior that we are going to test
+		int updatedRows = employeeRepository.patchById(employee.getId(), "Ram", null, null);
+		int missingRows = employeeRepository.patchById(employee.getId() + 1000, "Ram", null, null);
+		Employee updatedEmployee = employeeRepository.findById(employee.getId()).get();
+		
+		//then - verify the result
+		assertThat(updatedRows).isEqualTo(1);
+		assertThat(missingRows).isZero();
+		assertThat(updatedEmployee.getFirstName()).isEqualTo("Ram");
+		assertThat(updatedEmployee.getLastName()).isEqualTo("Fadatare");
+		assertThat(updatedEmployee.getEmail()).isEqualTo("ramesh@gmail.com");
+		//the bulk update bumps the version itself
+		assertThat(updatedEmployee.getVersion()).isEqualTo(1L);
+	}
+	
+	@DisplayName("JUnit test for delete employee at a version operation")
+	@Test
+	public void givenEmployeeObject_whenRemoveByIdAndVersion_thenRemoveOnlyAtCurrentVersion() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		employeeRepository.patchById(employee.getId(), "Ram", null, null);
+
+		//when - action or behavior that we are going to test
+		int staleRows = employeeRepository.removeByIdAndVersion(employee.getId(), 0L);
+		int deletedRows = employeeRepository.removeByIdAndVersion(employee.getId(), 1L);
+		
+		//then - verify the result
+		assertThat(staleRows).isZero();
+		assertThat(deletedRows).isEqualTo(1);
+		assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+	}
+	
 	@DisplayName("JUnit test for delete employee operation")
 	@Test
 	public void givenEmployeeObject_whenDelete_thenRemoveEmployee() {
@@ -143,6 +282,29 @@ public class EmployeeRepositoryTests {
 		assertThat(employeeOptional).isEmpty();
 	}
 	
+	@DisplayName("JUnit test for delete employees by ids operation")
+	@Test
+	public void givenEmployeeList_whenRemoveByIdIn_thenRemoveOnlyExistingEmployees() {
+
+		//given - precondition or setup
+		Employee employee1 = employeeRepository.save(new Employee("Ramesh", "Ramesh", "ramesh@gmail.com"));
+		Employee employee2 = employeeRepository.save(new Employee("Kamesh", "Kamesh", "kamesh@gmail.com"));
+		employeeRepository.flush();
+		reset();
+		
+		//when - action or behavior that we are going to test
+		int deletedRows = employeeRepository.removeByIdIn(List.of(employee1.getId(), employee2.getId() + 1000));
+		int deletedAgain = employeeRepository.removeById(employee1.getId());
+		
+		//then - verify the result
+		assertThat(deletedRows).isEqualTo(1);
+		assertThat(deletedAgain).isZero();
+		//one delete each, nothing is loaded first
+		assertDeleteCount(2);
+		assertStatementCount(2);
+		assertThat(employeeRepository.findAll()).extracting(Employee::getId).containsExactly(employee2.getId());
+	}
+	
 	@DisplayName("JUnit test for custom query using JPQL with index")
 	@Test
 	public void givenFirstNameAndLastName_whenFindByJPQL_thenEmployeeObject() {
@@ -0,0 +1,161 @@
+package net.javaguides.springboottesting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.springboottesting.exception.ResourceAlreadyExistsException;
+import net.javaguides.springboottesting.exception.ServiceUnavailableException;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeeTicket;
+import net.javaguides.springboottesting.service.impl.EmployeeCreateQueue;
+
+public class EmployeeCreateQueueTests {
+
+	private EmployeeService employeeService;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private EmployeeCreateQueue employeeCreateQueue;
+
+	@BeforeEach
+	public void setup() {
+		employeeService = mock(EmployeeService.class);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void cleanup() throws InterruptedException {
+		employeeCreateQueue.destroy();
+	}
+
+	@DisplayName("JUnit test for write-behind creates committed as one group")
+	@Test
+	public void givenQueuedEmployees_whenGroupCommitted_thenTicketsCreatedOrFailed() throws Exception {
+
+		//given - precondition or setup
+		given(employeeService.saveEmployeeGroup(anyList())).willAnswer(invocation -> {
+			List<Employee> employees = invocation.getArgument(0);
+			List<Employee> savedEmployees = new ArrayList<>();
+			for (int i = 0; i < employees.size(); i++) {
+				Employee employee = employees.get(i);
+				//the second employee's email is taken already
+				if (i == 1) {
+					savedEmployees.add(null);
+				} else {
+					employee.setId(i + 1L);
+					savedEmployees.add(employee);
+				}
+			}
+			return savedEmployees;
+		});
+		//a long delay, so only the group size closes the group
+		employeeCreateQueue = new EmployeeCreateQueue(employeeService, meterRegistry, 10, 3, 10_000,
+				Duration.ofMinutes(1), 100);
+
+		//when - action or behavior that we are going to test
+		EmployeeTicket first = employeeCreateQueue.enqueue(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		EmployeeTicket second = employeeCreateQueue.enqueue(new Employee("Tony", "Stark", "tony@gmail.com"));
+		EmployeeTicket third = employeeCreateQueue.enqueue(new Employee("John", "Cena", "cena@gmail.com"));
+
+		//then - verify the result
+		assertThat(first.getStatus()).isEqualTo(EmployeeTicket.Status.PENDING);
+		verify(employeeService, timeout(5_000)).saveEmployeeGroup(argThat(employees -> employees.size() == 3));
+		awaitDone(third.getId());
+
+		assertThat(employeeCreateQueue.getTicket(first.getId()).get().getEmployee().getId()).isEqualTo(1L);
+		EmployeeTicket failed = employeeCreateQueue.getTicket(second.getId()).get();
+		assertThat(failed.getStatus()).isEqualTo(EmployeeTicket.Status.FAILED);
+		assertThat(failed.getError()).isEqualTo("Employee already exist with given email: tony@gmail.com");
+		assertThat(employeeCreateQueue.getTicket(third.getId()).get().getStatus()).isEqualTo(EmployeeTicket.Status.CREATED);
+		assertThat(meterRegistry.get("employees.create.queue.rows").tag("outcome", "created").counter().count()).isEqualTo(2.0);
+		assertThat(meterRegistry.get("employees.create.queue.rows").tag("outcome", "failed").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("employees.create.queue.groups").summary().count()).isEqualTo(1);
+	}
+
+	@DisplayName("JUnit test for a failed write-behind group written one by one")
+	@Test
+	public void givenGroupFails_whenCommitted_thenEmployeesSavedOneByOne() throws Exception {
+
+		//given - precondition or setup
+		given(employeeService.saveEmployeeGroup(anyList())).willThrow(new IllegalStateException("unique constraint"));
+		given(employeeService.saveEmployee(any(Employee.class))).willAnswer(invocation -> {
+			Employee employee = invocation.getArgument(0);
+			if (employee.getEmail().equals("tony@gmail.com"))
+				throw new ResourceAlreadyExistsException("Employee already exist with given email: tony@gmail.com");
+			//a new instance, mockito verifies against the argument as it is at the end
+			return Employee.builder().id(1L).firstName(employee.getFirstName()).lastName(employee.getLastName())
+					.email(employee.getEmail()).build();
+		});
+		employeeCreateQueue = new EmployeeCreateQueue(employeeService, meterRegistry, 10, 10, 20,
+				Duration.ofMinutes(1), 100);
+
+		//when - action or behavior that we are going to test
+		//an id in the body is not a create's to choose
+		EmployeeTicket first = employeeCreateQueue.enqueue(Employee.builder().id(99L).firstName("Ramesh").lastName("Fadatare")
+				.email("ramesh@gmail.com").build());
+		EmployeeTicket second = employeeCreateQueue.enqueue(new Employee("Tony", "Stark", "tony@gmail.com"));
+		awaitDone(first.getId());
+		awaitDone(second.getId());
+
+		//then - verify the result
+		assertThat(employeeCreateQueue.getTicket(first.getId()).get().getEmployee().getId()).isEqualTo(1L);
+		verify(employeeService).saveEmployee(argThat(employee -> employee.getEmail().equals("ramesh@gmail.com")
+				&& employee.getId() == 0L));
+		EmployeeTicket failed = employeeCreateQueue.getTicket(second.getId()).get();
+		assertThat(failed.getStatus()).isEqualTo(EmployeeTicket.Status.FAILED);
+		assertThat(failed.getError()).isEqualTo("Employee already exist with given email: tony@gmail.com");
+	}
+
+	@DisplayName("JUnit test for a full write-behind queue")
+	@Test
+	public void givenFullQueue_whenEnqueue_thenThrowsServiceUnavailable() throws Exception {
+
+		//given - precondition or setup
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(employeeService.saveEmployeeGroup(anyList())).willAnswer(invocation -> {
+			writing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return new ArrayList<>(invocation.<List<Employee>>getArgument(0));
+		});
+		employeeCreateQueue = new EmployeeCreateQueue(employeeService, meterRegistry, 1, 1, 0,
+				Duration.ofMinutes(1), 100);
+		//the writer holds the first employee, the second fills the queue
+		employeeCreateQueue.enqueue(new Employee("Ramesh", "Fadatare", "ramesh@gmail.com"));
+		assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+		employeeCreateQueue.enqueue(new Employee("Tony", "Stark", "tony@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		org.junit.jupiter.api.Assertions.assertThrows(ServiceUnavailableException.class, () ->
+		employeeCreateQueue.enqueue(new Employee("John", "Cena", "cena@gmail.com")));
+
+		//then - verify the result
+		release.countDown();
+	}
+
+	private void awaitDone(String ticketId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (employeeCreateQueue.getTicket(ticketId).get().getStatus() == EmployeeTicket.Status.PENDING) {
+			assertThat(System.nanoTime()).as("ticket %s still pending", ticketId).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
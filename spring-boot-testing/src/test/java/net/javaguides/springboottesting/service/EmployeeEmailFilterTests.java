@@ -0,0 +1,77 @@
+package net.javaguides.springboottesting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.impl.EmployeeEmailFilter;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeEmailFilterTests {
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	
+	private SimpleMeterRegistry meterRegistry;
+	
+	private EmployeeEmailFilter employeeEmailFilter;
+	
+	@BeforeEach
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		employeeEmailFilter = new EmployeeEmailFilter(employeeRepository, transactionTemplate, meterRegistry, 1000, 0.01, 0.1);
+	}
+	
+	@DisplayName("JUnit test for email filter before it was built")
+	@Test
+	public void givenFilterNotBuilt_whenMightContain_thenTrue() {
+		
+		assertThat(employeeEmailFilter.mightContain("ramesh@gmail.com")).isTrue();
+	}
+	
+	@DisplayName("JUnit test for email filter after rebuild and create")
+	@Test
+	public void givenStoredEmails_whenRebuild_thenOnlyStoredAndAddedEmailsMightExist() throws InterruptedException {
+
+		//given - precondition or setup
+		given(employeeRepository.count()).willReturn(1L);
+		given(employeeRepository.streamAllEmails()).willReturn(Stream.of("ramesh@gmail.com"));
+		given(transactionTemplate.execute(any())).willAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		
+		//when - action or behavior that we are going to test
+		employeeEmailFilter.rebuildAsync();
+		awaitBuilt();
+		employeeEmailFilter.add("tony@gmail.com");
+		
+		//then - verify the result
+		assertThat(employeeEmailFilter.mightContain("ramesh@gmail.com")).isTrue();
+		assertThat(employeeEmailFilter.mightContain("tony@gmail.com")).isTrue();
+		assertThat(employeeEmailFilter.mightContain("bony@gmail.com")).isFalse();
+		assertThat(meterRegistry.get("employees.email.filter.lookups").tag("result", "skipped").counter().count())
+				.isEqualTo(1.0);
+		assertThat(meterRegistry.get("employees.email.filter.expected.fpp").gauge().value()).isLessThan(0.01);
+	}
+	
+	private void awaitBuilt() throws InterruptedException {
+		//expected fpp reports 1.0 until the first build finished
+		for (int i = 0; i < 100 && meterRegistry.get("employees.email.filter.expected.fpp").gauge().value() == 1.0; i++) {
+			Thread.sleep(50);
+		}
+	}
+}
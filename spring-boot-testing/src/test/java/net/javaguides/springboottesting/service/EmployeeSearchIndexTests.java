@@ -0,0 +1,175 @@
+package net.javaguides.springboottesting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.impl.EmployeeSearchIndex;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeSearchIndexTests {
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private EmployeeSearchIndex employeeSearchIndex;
+
+	@BeforeEach
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		employeeSearchIndex = new EmployeeSearchIndex(employeeRepository, transactionTemplate, meterRegistry);
+	}
+
+	@DisplayName("JUnit test for search ranking whole words before prefixes before infixes")
+	@Test
+	public void givenIndexedEmployees_whenSearch_thenRankedByMatchQuality() {
+
+		//given - precondition or setup
+		employeeSearchIndex.put(employee(3L, "Tony", "Abram", "tony@gmail.com"));
+		employeeSearchIndex.put(employee(2L, "Ramesh", "Fadatare", "ramesh@gmail.com"));
+		employeeSearchIndex.put(employee(1L, "Ram", "Jadav", "ram@gmail.com"));
+		employeeSearchIndex.put(employee(4L, "Bony", "Bark", "bony@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		List<Employee> employees = employeeSearchIndex.search("RAM", 0, 10);
+
+		//then - verify the result
+		assertThat(employees).extracting(Employee::getId).containsExactly(1L, 2L, 3L);
+		assertThat(employeeSearchIndex.search("ram", 1, 1)).extracting(Employee::getId).containsExactly(2L);
+		assertThat(employeeSearchIndex.search("ram", 3, 10)).isEmpty();
+	}
+
+	@DisplayName("JUnit test for search with short and multiple terms")
+	@Test
+	public void givenIndexedEmployees_whenSearchShortOrSeveralTerms_thenEveryTermMatches() {
+
+		//given - precondition or setup
+		employeeSearchIndex.put(employee(1L, "Tony", "Stark", "tony@gmail.com"));
+		employeeSearchIndex.put(employee(2L, "Ken", "Stoker", "ken@gmail.com"));
+		employeeSearchIndex.put(employee(3L, "Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		List<Employee> shortTerm = employeeSearchIndex.search("to", 0, 10);
+		List<Employee> severalTerms = employeeSearchIndex.search("ramesh fad", 0, 10);
+
+		//then - verify the result
+		assertThat(shortTerm).extracting(Employee::getId).containsExactly(1L);
+		assertThat(severalTerms).extracting(Employee::getId).containsExactly(3L);
+		assertThat(employeeSearchIndex.search("ramesh stark", 0, 10)).isEmpty();
+		assertThat(employeeSearchIndex.search("gmail.com", 0, 10)).hasSize(3);
+	}
+
+	@DisplayName("JUnit test for search after patch and remove")
+	@Test
+	public void givenIndexedEmployee_whenPatchAndRemove_thenSearchFollows() {
+
+		//given - precondition or setup
+		employeeSearchIndex.put(employee(1L, "Ramesh", "Fadatare", "ramesh@gmail.com"));
+
+		//when - action or behavior that we are going to test
+		employeeSearchIndex.patch(1L, null, "Stark", null);
+
+		//then - verify the result
+		assertThat(employeeSearchIndex.search("fadatare", 0, 10)).isEmpty();
+		assertThat(employeeSearchIndex.search("ramesh stark", 0, 10)).extracting(Employee::getLastName).containsExactly("Stark");
+
+		employeeSearchIndex.remove(List.of(1L));
+		assertThat(employeeSearchIndex.search("ramesh", 0, 10)).isEmpty();
+		assertThat(meterRegistry.get("employees.search.index.size").gauge().value()).isEqualTo(0.0);
+	}
+
+	@DisplayName("JUnit test for patching an employee the load has not indexed yet")
+	@Test
+	public void givenEmployeeNotIndexedYet_whenPatch_thenStoredRowIndexed() {
+
+		//given - precondition or setup
+		willAnswer(invocation -> invocation.<TransactionCallback<Employee>>getArgument(0).doInTransaction(null))
+				.given(transactionTemplate).execute(any());
+		given(employeeRepository.findById(1L)).willReturn(Optional.of(employee(1L, "Ramesh", "Stark", "ramesh@gmail.com")));
+
+		//when - action or behavior that we are going to test
+		employeeSearchIndex.patch(1L, null, "Stark", null);
+
+		//then - verify the result
+		assertThat(employeeSearchIndex.search("ramesh stark", 0, 10)).extracting(Employee::getId).containsExactly(1L);
+	}
+
+	@DisplayName("JUnit test for search after an update and a removed employee's slot is reused")
+	@Test
+	public void givenRemovedEmployee_whenPutAnother_thenOnlyCurrentFieldsMatch() {
+
+		//given - precondition or setup
+		employeeSearchIndex.put(employee(1L, "Ramesh", "Fadatare", "ramesh@gmail.com"));
+		employeeSearchIndex.put(employee(2L, "Tony", "Stark", "tony@gmail.com"));
+		employeeSearchIndex.remove(List.of(1L));
+
+		//when - action or behavior that we are going to test
+		employeeSearchIndex.put(employee(3L, "John", "Cena", "cena@gmail.com"));
+		employeeSearchIndex.put(employee(2L, "Tony", "Stoker", "tony@gmail.com"));
+
+		//then - verify the result
+		assertThat(employeeSearchIndex.search("ramesh", 0, 10)).isEmpty();
+		assertThat(employeeSearchIndex.search("stark", 0, 10)).isEmpty();
+		assertThat(employeeSearchIndex.search("cena", 0, 10)).singleElement()
+				.satisfies(employee -> {
+					assertThat(employee.getId()).isEqualTo(3L);
+					assertThat(employee.getFirstName()).isEqualTo("John");
+					assertThat(employee.getEmail()).isEqualTo("cena@gmail.com");
+				});
+		assertThat(employeeSearchIndex.search("sto", 0, 10)).extracting(Employee::getId).containsExactly(2L);
+		assertThat(employeeSearchIndex.size()).isEqualTo(2);
+	}
+
+	@DisplayName("JUnit test for loading the search index from the table")
+	@Test
+	public void givenStoredEmployees_whenLoad_thenSearchable() throws InterruptedException {
+
+		//given - precondition or setup
+		willAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).given(transactionTemplate).executeWithoutResult(any());
+		willAnswer(invocation -> {
+			Consumer<Employee> consumer = invocation.getArgument(0);
+			consumer.accept(employee(1L, "Ramesh", "Fadatare", "ramesh@gmail.com"));
+			consumer.accept(employee(2L, "Tony", "Stark", "tony@gmail.com"));
+			return null;
+		}).given(employeeRepository).scrollAll(any());
+
+		//when - action or behavior that we are going to test
+		employeeSearchIndex.loadAsync();
+		for (int i = 0; i < 100 && employeeSearchIndex.size() < 2; i++) {
+			Thread.sleep(50);
+		}
+
+		//then - verify the result
+		assertThat(employeeSearchIndex.search("stark", 0, 10)).extracting(Employee::getId).containsExactly(2L);
+		assertThat(meterRegistry.get("employees.search.index.size").gauge().value()).isEqualTo(2.0);
+	}
+
+	private static Employee employee(long id, String firstName, String lastName, String email) {
+		return Employee.builder().id(id).firstName(firstName).lastName(lastName).email(email).build();
+	}
+}
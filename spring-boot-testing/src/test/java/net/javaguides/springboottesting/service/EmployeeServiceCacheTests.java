@@ -0,0 +1,127 @@
+package net.javaguides.springboottesting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Optional;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.javaguides.springboottesting.config.CacheConfig;
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.impl.EmployeeEmailFilter;
+import net.javaguides.springboottesting.service.impl.EmployeeSearchIndex;
+import net.javaguides.springboottesting.service.impl.EmployeeServiceImpl;
+import net.javaguides.springboottesting.service.impl.EmployeeUpdateRetryPolicy;
+
+@SpringBootTest(classes = { CacheConfig.class, EmployeeServiceImpl.class })
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class EmployeeServiceCacheTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+	
+	@Autowired
+	private CacheManager cacheManager;
+	
+	@MockBean
+	private EmployeeRepository employeeRepository;
+	@MockBean
+	private TransactionTemplate transactionTemplate;
+	@MockBean
+	private EmployeeEmailFilter employeeEmailFilter;
+	@MockBean
+	private EmployeeSearchIndex employeeSearchIndex;
+	@MockBean
+	private EmployeeUpdateRetryPolicy employeeUpdateRetryPolicy;
+	@MockBean
+	private EntityManagerFactory entityManagerFactory;
+	
+	private Employee employee;
+	
+	@BeforeEach
+	public void setup() {
+		cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).clear();
+		employee = Employee.builder().id(1L).firstName("Ramesh").lastName("Fadatare").email("ramesh@gmail.com").build();
+	}
+	
+	@DisplayName("JUnit test for getting the employee by id twice")
+	@Test
+	public void givenEmployeeObject_whenGetByIdTwice_thenRepositoryCalledOnce() {
+
+		//given - precondition or setup
+		given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+		
+		//when - action or behavior that we are going to test
+		employeeService.getEmployeeById(1L);
+		Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+		
+		//then - verify the result
+		assertThat(cachedEmployee).contains(employee);
+		verify(employeeRepository, times(1)).findById(1L);
+	}
+	
+	@DisplayName("JUnit test for getting an unknown employee by id twice")
+	@Test
+	public void givenNoEmployee_whenGetByIdTwice_thenMissIsNotCached() {
+
+		//given - precondition or setup
+		given(employeeRepository.findById(1L)).willReturn(Optional.empty());
+		
+		//when - action or behavior that we are going to test
+		employeeService.getEmployeeById(1L);
+		employeeService.getEmployeeById(1L);
+		
+		//then - verify the result
+		verify(employeeRepository, times(2)).findById(1L);
+	}
+	
+	@DisplayName("JUnit test for updating a cached employee")
+	@Test
+	public void givenCachedEmployee_whenUpdateEmployee_thenCacheRefreshed() {
+
+		//given - precondition or setup
+		Employee updatedEmployee = Employee.builder().id(1L).firstName("Ram").lastName("Fadatare").email("ram@gmail.com").build();
+		given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+		given(employeeRepository.save(any(Employee.class))).willReturn(updatedEmployee);
+		employeeService.getEmployeeById(1L);
+		
+		//when - action or behavior that we are going to test
+		employeeService.updateEmployee(updatedEmployee);
+		
+		//then - verify the result
+		assertThat(employeeService.getEmployeeById(1L)).contains(updatedEmployee);
+		verify(employeeRepository, times(1)).findById(1L);
+	}
+	
+	@DisplayName("JUnit test for deleting a cached employee")
+	@Test
+	public void givenCachedEmployee_whenDeleteEmployee_thenCacheEvicted() {
+
+		//given - precondition or setup
+		given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+		employeeService.getEmployeeById(1L);
+		
+		//when - action or behavior that we are going to test
+		employeeService.deleteEmployee(1L);
+		employeeService.getEmployeeById(1L);
+		
+		//then - verify the result
+		verify(employeeRepository, times(2)).findById(1L);
+	}
+}
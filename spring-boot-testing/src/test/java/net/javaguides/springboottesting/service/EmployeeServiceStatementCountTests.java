@@ -0,0 +1,323 @@
+package net.javaguides.springboottesting.service;
+
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertDeleteCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertInsertCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertSelectCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertStatementCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.assertUpdateCount;
+import static net.javaguides.springboottesting.sql.SqlStatementAssertions.reset;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
+import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.impl.EmployeeEmailFilter;
+import net.javaguides.springboottesting.service.impl.EmployeeSearchIndex;
+import net.javaguides.springboottesting.service.impl.EmployeeServiceImpl;
+import net.javaguides.springboottesting.service.impl.EmployeeUpdateRetryPolicy;
+import net.javaguides.springboottesting.sql.SqlStatementCountConfig;
+
+//every service call runs in its own transactions like in production, tests that empty the second-level cache
+//after the given step budget a cold read
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ EmployeeServiceImpl.class, SqlStatementCountConfig.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmployeeServiceStatementCountTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private EmployeeEmailFilter employeeEmailFilter;
+
+	@MockBean
+	private EmployeeSearchIndex employeeSearchIndex;
+
+	@MockBean
+	private EmployeeUpdateRetryPolicy employeeUpdateRetryPolicy;
+
+	private Employee employee;
+
+	@BeforeEach
+	public void setup() {
+		employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
+	}
+
+	@AfterEach
+	public void cleanup() {
+		employeeRepository.deleteAll();
+	}
+
+	@DisplayName("JUnit test for the statements of save employee with a new email")
+	@Test
+	public void givenNewEmail_whenSaveEmployee_thenOnlyInsert() {
+
+		//given - precondition or setup
+		given(employeeEmailFilter.mightContain(employee.getEmail())).willReturn(false);
+		reset();
+
+		//when - action or behavior that we are going to test
+		employeeService.saveEmployee(employee);
+
+		//then - verify the result
+		assertSelectCount(0);
+		assertInsertCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of save employee when the email filter cannot rule it out")
+	@Test
+	public void givenPossiblyTakenEmail_whenSaveEmployee_thenOneSelectAndInsert() {
+
+		//given - precondition or setup
+		given(employeeEmailFilter.mightContain(employee.getEmail())).willReturn(true);
+		reset();
+
+		//when - action or behavior that we are going to test
+		employeeService.saveEmployee(employee);
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertInsertCount(1);
+		assertStatementCount(2);
+	}
+
+	@DisplayName("JUnit test for the statements of save employees")
+	@Test
+	public void givenEmployeeList_whenSaveEmployees_thenOneBatchedInsert() {
+
+		//given - precondition or setup
+		List<Employee> employees = List.of(employee,
+				new Employee("Tony", "Stark", "tony@gmail.com"),
+				new Employee("John", "Cena", "cena@gmail.com"));
+		given(employeeEmailFilter.mightContain(anyString())).willReturn(true);
+		reset();
+
+		//when - action or behavior that we are going to test
+		employeeService.saveEmployees(employees);
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertInsertCount(1);
+		assertStatementCount(2);
+	}
+
+	@DisplayName("JUnit test for the statements of save employee group")
+	@Test
+	public void givenDrainedGroup_whenSaveEmployeeGroup_thenOneSelectAndOneBatchedInsert() {
+
+		//given - precondition or setup
+		//a group as EmployeeCreateQueue drains it, one email already taken
+		employeeRepository.save(new Employee("Tony", "Stark", "tony@gmail.com"));
+		List<Employee> group = List.of(employee,
+				new Employee("Tony", "Stark", "tony@gmail.com"),
+				new Employee("John", "Cena", "cena@gmail.com"),
+				new Employee("Ken", "Stoker", "ken@gmail.com"));
+		given(employeeEmailFilter.mightContain(anyString())).willReturn(true);
+		reset();
+
+		//when - action or behavior that we are going to test
+		List<Employee> savedEmployees = employeeService.saveEmployeeGroup(group);
+
+		//then - verify the result
+		assertThat(savedEmployees).hasSize(4).element(1).isNull();
+		assertSelectCount(1);
+		assertInsertCount(1);
+		assertStatementCount(2);
+	}
+
+	@DisplayName("JUnit test for the statements of get all employees and a page of employees")
+	@Test
+	public void givenEmployeeList_whenGetEmployees_thenOneSelectEach() {
+
+		//given - precondition or setup
+		saveEmployees(3);
+
+		//when - action or behavior that we are going to test
+		reset();
+		employeeService.getAllEmployees();
+		assertSelectCount(1);
+
+		reset();
+		EmployeePage page = employeeService.getEmployees(null, 2);
+		assertSelectCount(1);
+
+		reset();
+		employeeService.getEmployees(page.getNextCursor(), 2);
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of export employees")
+	@Test
+	public void givenEmployeeList_whenExportEmployees_thenOneSelect() {
+
+		//given - precondition or setup
+		saveEmployees(3);
+		reset();
+
+		//when - action or behavior that we are going to test
+		employeeService.exportEmployees(exported -> { });
+
+		//then - verify the result
+		assertSelectCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of get employee by id")
+	@Test
+	public void givenSavedEmployee_whenGetEmployeeById_thenOneSelectThenCached() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		entityManagerFactory.getCache().evictAll();
+
+		//when - action or behavior that we are going to test
+		reset();
+		employeeService.getEmployeeById(employee.getId());
+		assertSelectCount(1);
+
+		reset();
+		employeeService.getEmployeeById(employee.getId());
+
+		//then - verify the result
+		assertStatementCount(0);
+	}
+
+	@DisplayName("JUnit test for the statements of update employee")
+	@Test
+	public void givenSavedEmployee_whenUpdateEmployee_thenSelectAndUpdate() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		entityManagerFactory.getCache().evictAll();
+		Employee changedEmployee = Employee.builder().id(employee.getId())
+				.firstName("Ram").lastName("Fadatare").email("ram@gmail.com").build();
+		reset();
+
+		//when - action or behavior that we are going to test
+		employeeService.updateEmployee(changedEmployee);
+
+		//then - verify the result
+		//merge of a detached employee reads the row first
+		assertSelectCount(1);
+		assertUpdateCount(1);
+		assertStatementCount(2);
+	}
+
+	@DisplayName("JUnit test for the statements of update employee under an If-Match precondition")
+	@Test
+	public void givenSavedEmployee_whenUpdateEmployeeIfUnchanged_thenSelectAndUpdate() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		entityManagerFactory.getCache().evictAll();
+		Employee changedEmployee = Employee.builder().id(employee.getId())
+				.firstName("Ram").lastName("Fadatare").email("ram@gmail.com").version(employee.getVersion()).build();
+		reset();
+
+		//when - action or behavior that we are going to test
+		Employee updatedEmployee = employeeService.updateEmployeeIfUnchanged(changedEmployee);
+
+		//then - verify the result
+		assertThat(updatedEmployee.getVersion()).isEqualTo(employee.getVersion() + 1);
+		//the version is checked by the update itself, only the merge reads the row
+		assertSelectCount(1);
+		assertUpdateCount(1);
+		assertStatementCount(2);
+	}
+
+	@DisplayName("JUnit test for the statements of patch employee")
+	@Test
+	public void givenSavedEmployee_whenPatchEmployee_thenOnlyUpdate() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+		reset();
+
+		//when - action or behavior that we are going to test
+		boolean patched = employeeService.patchEmployee(employee.getId(), Employee.builder().firstName("Ram").build());
+
+		//then - verify the result
+		assertThat(patched).isTrue();
+		assertUpdateCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of delete employee and delete employees")
+	@Test
+	public void givenSavedEmployees_whenDelete_thenOnlyDelete() {
+
+		//given - precondition or setup
+		List<Employee> employees = saveEmployees(3);
+
+		//when - action or behavior that we are going to test
+		reset();
+		employeeService.deleteEmployee(employees.get(0).getId());
+		assertDeleteCount(1);
+		assertStatementCount(1);
+
+		reset();
+		employeeService.deleteEmployees(List.of(employees.get(1).getId(), employees.get(2).getId()));
+
+		//then - verify the result
+		assertDeleteCount(1);
+		assertStatementCount(1);
+	}
+
+	@DisplayName("JUnit test for the statements of delete employee at a version")
+	@Test
+	public void givenSavedEmployee_whenDeleteEmployeeAtVersion_thenOnlyDelete() {
+
+		//given - precondition or setup
+		employeeRepository.save(employee);
+
+		//when - action or behavior that we are going to test
+		reset();
+		boolean stale = employeeService.deleteEmployee(employee.getId(), employee.getVersion() + 1);
+		assertDeleteCount(1);
+		assertStatementCount(1);
+
+		reset();
+		boolean deleted = employeeService.deleteEmployee(employee.getId(), employee.getVersion());
+
+		//then - verify the result
+		assertThat(stale).isFalse();
+		assertThat(deleted).isTrue();
+		assertDeleteCount(1);
+		assertStatementCount(1);
+	}
+
+	private List<Employee> saveEmployees(int count) {
+		List<Employee> employees = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			employees.add(new Employee("Ramesh" + i, "Fadatare", "ramesh" + i + "@gmail.com"));
+		return employeeRepository.saveAll(employees);
+	}
+}
@@ -2,35 +2,67 @@ package net.javaguides.springboottesting.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyMap;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.eq;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import net.javaguides.springboottesting.exception.ResourceNotFoundException;
+import net.javaguides.springboottesting.exception.BadRequestException;
+import net.javaguides.springboottesting.exception.ConcurrentUpdateException;
+import net.javaguides.springboottesting.exception.ResourceAlreadyExistsException;
 import net.javaguides.springboottesting.model.Employee;
+import net.javaguides.springboottesting.model.EmployeePage;
 import net.javaguides.springboottesting.repository.EmployeeRepository;
+import net.javaguides.springboottesting.service.impl.EmployeeEmailFilter;
+import net.javaguides.springboottesting.service.impl.EmployeeSearchIndex;
 import net.javaguides.springboottesting.service.impl.EmployeeServiceImpl;
+import net.javaguides.springboottesting.service.impl.EmployeeUpdateRetryPolicy;
 
 @ExtendWith(MockitoExtension.class)
 public class EmployeeServiceTests {
 
 	@Mock
 	private EmployeeRepository employeeRepository;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	@Mock
+	private EmployeeEmailFilter employeeEmailFilter;
+	@Mock
+	private EmployeeSearchIndex employeeSearchIndex;
+	@Mock
+	private EmployeeUpdateRetryPolicy employeeUpdateRetryPolicy;
 	@InjectMocks
 	private EmployeeServiceImpl employeeService;
 	
@@ -51,10 +83,11 @@ public class EmployeeServiceTests {
 		//given - precondition or setup
 		//Employee employee = new Employee("Ramesh", "Fadatare", "ramesh@gmail.com");
 		
+		given(employeeEmailFilter.mightContain(employee.getEmail())).willReturn(true);
 		given(employeeRepository.findByEmail(employee.getEmail()))
 		.willReturn(Optional.empty());
 		
-		given(employeeRepository.save(employee)).willReturn(employee);
+		given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
 		
 		//when - action or behavior that we are going to test
 		Employee savedEmployee = employeeService.saveEmployee(employee);
@@ -70,16 +103,132 @@ public class EmployeeServiceTests {
 	public void givenEmployeeWithExistingEmail_whenSaveEmployee_thenThrowsException() {
 
 		//given - precondition or setup
+		given(employeeEmailFilter.mightContain(employee.getEmail())).willReturn(true);
 		given(employeeRepository.findByEmail(employee.getEmail()))
 		.willReturn(Optional.of(employee));
 		
 //		given(employeeRepository.save(employee)).willReturn(employee);
 		
-		org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> 
+		org.junit.jupiter.api.Assertions.assertThrows(ResourceAlreadyExistsException.class, () -> 
 		employeeService.saveEmployee(employee));
 		
 		//then
 		verify(employeeRepository, never()).save(any(Employee.class));
+		verify(employeeRepository, never()).saveAndFlush(any(Employee.class));
+	}
+	
+	@DisplayName("JUnit test case for save employee method with an email the filter rules out")
+	@Test
+	public void givenEmployeeWithNewEmail_whenSaveEmployee_thenSkipsEmailLookup() {
+
+		//given - precondition or setup
+		given(employeeEmailFilter.mightContain(employee.getEmail())).willReturn(false);
+		given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
+		
+		//when - action or behavior that we are going to test
+		Employee savedEmployee = employeeService.saveEmployee(employee);
+		
+		//then - verify the result
+		assertThat(savedEmployee).isNotNull();
+		verify(employeeRepository, never()).findByEmail(any(String.class));
+		verify(employeeEmailFilter).add(employee.getEmail());
+	}
+	
+	@DisplayName("JUnit test case for save employee method racing on the unique email index")
+	@Test
+	public void givenEmailConstraintViolation_whenSaveEmployee_thenThrowsException() {
+
+		//given - precondition or setup
+		given(employeeRepository.saveAndFlush(employee)).willThrow(new DataIntegrityViolationException("duplicate",
+				new ConstraintViolationException("duplicate", null, "UK_EMPLOYEES_EMAIL_INDEX_8")));
+		
+		org.junit.jupiter.api.Assertions.assertThrows(ResourceAlreadyExistsException.class, () -> 
+		employeeService.saveEmployee(employee));
+		
+		//then
+		verify(employeeEmailFilter, never()).add(any(String.class));
+	}
+	
+	@DisplayName("JUnit test case for saving a batch of employees")
+	@Test
+	public void givenEmployeesList_whenSaveEmployees_thenSavedEmployeesList() {
+
+		Employee employee1 = new Employee("Tony", "Stark", "tony@gmail.com");
+		List<Employee> employees = List.of(employee, employee1);
+		
+		//given - precondition or setup
+		given(transactionTemplate.execute(any())).willAnswer(invocation -> 
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		given(employeeEmailFilter.mightContain(any(String.class))).willReturn(true);
+		given(employeeRepository.findExistingEmails(List.of("ramesh@gmail.com", "tony@gmail.com")))
+		.willReturn(Collections.emptyList());
+		given(employeeRepository.saveAll(employees)).willReturn(employees);
+		
+		//when - action or behavior that we are going to test
+		List<Employee> savedEmployees = employeeService.saveEmployees(employees);
+		
+		//then - verify the result
+		assertThat(savedEmployees).containsExactly(employee, employee1);
+		verify(employeeRepository, never()).findByEmail(any(String.class));
+		verify(entityManager).clear();
+	}
+	
+	@DisplayName("JUnit test case for saving a batch of employees with an existing email")
+	@Test
+	public void givenEmployeesListWithExistingEmail_whenSaveEmployees_thenThrowsException() {
+
+		//given - precondition or setup
+		given(transactionTemplate.execute(any())).willAnswer(invocation -> 
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		given(employeeEmailFilter.mightContain(any(String.class))).willReturn(true);
+		given(employeeRepository.findExistingEmails(List.of("ramesh@gmail.com")))
+		.willReturn(List.of("ramesh@gmail.com"));
+		
+		org.junit.jupiter.api.Assertions.assertThrows(ResourceAlreadyExistsException.class, () -> 
+		employeeService.saveEmployees(List.of(employee)));
+		
+		//then
+		verify(employeeRepository, never()).saveAll(any());
+	}
+	
+	@DisplayName("JUnit test case for saving a batch of employees with a repeated email")
+	@Test
+	public void givenEmployeesListWithRepeatedEmail_whenSaveEmployees_thenThrowsException() {
+
+		Employee employee1 = new Employee("Ram", "Fadatare", "ramesh@gmail.com");
+		
+		org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class, () -> 
+		employeeService.saveEmployees(List.of(employee, employee1)));
+		
+		//then
+		verify(employeeRepository, never()).saveAll(any());
+	}
+	
+	@DisplayName("JUnit test case for saving a write-behind group of employees")
+	@Test
+	public void givenGroupWithExistingAndRepeatedEmails_whenSaveEmployeeGroup_thenOnlyNewEmployeesSaved() {
+
+		Employee existing = new Employee("Tony", "Stark", "tony@gmail.com");
+		Employee repeated = new Employee("Ram", "Fadatare", "ramesh@gmail.com");
+		
+		//given - precondition or setup
+		given(transactionTemplate.execute(any())).willAnswer(invocation -> 
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		given(employeeEmailFilter.mightContain(any(String.class))).willReturn(true);
+		given(employeeRepository.findExistingEmails(List.of("ramesh@gmail.com", "tony@gmail.com", "ramesh@gmail.com")))
+		.willReturn(List.of("tony@gmail.com"));
+		Employee savedEmployee = Employee.builder().id(1L).firstName("Ramesh").lastName("Fadatare").email("ramesh@gmail.com").build();
+		given(employeeRepository.saveAll(List.of(employee))).willReturn(List.of(savedEmployee));
+		
+		//when - action or behavior that we are going to test
+		List<Employee> savedEmployees = employeeService.saveEmployeeGroup(List.of(employee, existing, repeated));
+		
+		//then - verify the result
+		//the rows saveAll answered with, not the instances that went in
+		assertThat(savedEmployees).containsExactly(savedEmployee, null, null);
+		verify(employeeEmailFilter, never()).add("tony@gmail.com");
+		verify(employeeSearchIndex).put(savedEmployee);
+		verify(employeeSearchIndex, times(1)).put(any(Employee.class));
 	}
 	
 	@DisplayName("JUnit test for getting all the employees")
@@ -115,6 +264,89 @@ public class EmployeeServiceTests {
 		assertThat(employeeList.size()).isEqualTo(0);
 	}
 	
+	@DisplayName("JUnit test for getting a page of employees with a next cursor")
+	@Test
+	public void givenMoreEmployeesThanPageSize_whenGetEmployees_thenReturnPageWithCursor() {
+
+		Employee employee1 = Employee.builder().id(1L).firstName("Tony").lastName("Stark").email("tony@gmail.com").build();
+		Employee employee2 = Employee.builder().id(2L).firstName("Bony").lastName("Bark").email("bony@gmail.com").build();
+		
+		//given - precondition or setup
+		given(employeeRepository.findPageAfterId(0L, PageRequest.of(0, 2))).willReturn(List.of(employee1, employee2));
+		given(employeeRepository.findPageAfterId(1L, PageRequest.of(0, 2))).willReturn(List.of(employee2));
+		
+		//when - action or behavior that we are going to test
+		EmployeePage firstPage = employeeService.getEmployees(null, 1);
+		EmployeePage lastPage = employeeService.getEmployees(firstPage.getNextCursor(), 1);
+		
+		//then - verify the result
+		assertThat(firstPage.getEmployees()).containsExactly(employee1);
+		assertThat(firstPage.getNextCursor()).isNotNull();
+		assertThat(lastPage.getEmployees()).containsExactly(employee2);
+		assertThat(lastPage.getNextCursor()).isNull();
+	}
+	
+	@DisplayName("JUnit test for getting a page of employees with an invalid cursor")
+	@Test
+	public void givenInvalidCursor_whenGetEmployees_thenThrowsException() {
+
+		org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class, () -> 
+		employeeService.getEmployees("not a cursor", 10));
+	}
+
+	@DisplayName("JUnit test for searching employees with a next cursor")
+	@Test
+	public void givenMoreMatchesThanPageSize_whenSearchEmployees_thenReturnPageWithCursor() {
+
+		Employee employee1 = Employee.builder().id(1L).firstName("Tony").lastName("Stark").email("tony@gmail.com").build();
+		Employee employee2 = Employee.builder().id(2L).firstName("Tonya").lastName("Bark").email("tonya@gmail.com").build();
+
+		//given - precondition or setup
+		given(employeeSearchIndex.search("ton", 0, 2)).willReturn(List.of(employee1, employee2));
+		given(employeeSearchIndex.search("ton", 1, 2)).willReturn(List.of(employee2));
+
+		//when - action or behavior that we are going to test
+		EmployeePage firstPage = employeeService.searchEmployees("ton", null, 1);
+		EmployeePage lastPage = employeeService.searchEmployees("ton", firstPage.getNextCursor(), 1);
+
+		//then - verify the result
+		assertThat(firstPage.getEmployees()).containsExactly(employee1);
+		assertThat(firstPage.getNextCursor()).isNotNull();
+		assertThat(lastPage.getEmployees()).containsExactly(employee2);
+		assertThat(lastPage.getNextCursor()).isNull();
+	}
+
+	@DisplayName("JUnit test for searching employees with a blank query")
+	@Test
+	public void givenBlankQuery_whenSearchEmployees_thenThrowsException() {
+
+		org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class, () ->
+		employeeService.searchEmployees("  ", null, 10));
+		verify(employeeSearchIndex, never()).search(any(), anyInt(), anyInt());
+	}
+
+	@DisplayName("JUnit test for exporting all the employees")
+	@Test
+	public void givenEmployeesScroll_whenExportEmployees_thenEachEmployeeConsumed() {
+
+		Employee employee1 = new Employee("Tony", "Stark", "tony@gmail.com");
+		
+		//given - precondition or setup
+		willAnswer(invocation -> {
+			Consumer<Employee> consumer = invocation.getArgument(0);
+			consumer.accept(employee);
+			consumer.accept(employee1);
+			return null;
+		}).given(employeeRepository).scrollAll(any());
+		List<Employee> exported = new ArrayList<>();
+		
+		//when - action or behavior that we are going to test
+		employeeService.exportEmployees(exported::add);
+		
+		//then - verify the result
+		assertThat(exported).containsExactly(employee, employee1);
+	}
+	
 	@DisplayName("JUnit test for getting the employee by id")
 	@Test
 	public void givenEmployeeObject_whenGetById_thenReturnEmployee() {
@@ -146,19 +378,173 @@ public class EmployeeServiceTests {
 		assertThat(updatedEmployee.getFirstName()).isEqualTo("Ram");
 	}
 	
+	@DisplayName("JUnit test for updating employee that was changed since it was read, out of retries")
+	@Test
+	public void givenStaleVersion_whenUpdateEmployee_thenThrowsConcurrentUpdateException() {
+
+		//given - precondition or setup
+		given(employeeRepository.save(employee))
+				.willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employee.getId()));
+		given(employeeUpdateRetryPolicy.retryAfterConflict(1)).willReturn(false);
+		
+		//when - action or behavior that we are going to test
+		org.junit.jupiter.api.Assertions.assertThrows(ConcurrentUpdateException.class, () ->
+			employeeService.updateEmployee(employee));
+		
+		//then - verify the result
+		verify(employeeSearchIndex, never()).put(any(Employee.class));
+	}
+	
+	@DisplayName("JUnit test for updating employee that was changed since it was read, applied again on the newer version")
+	@Test
+	public void givenStaleVersion_whenUpdateEmployee_thenRetriedAtCurrentVersion() {
+
+		//given - precondition or setup
+		employee.setFirstName("Ram");
+		Employee currentEmployee = Employee.builder().id(employee.getId()).firstName("Tony").lastName("Stark")
+				.email("tony@gmail.com").version(5L).build();
+		given(employeeRepository.save(employee))
+				.willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employee.getId()));
+		given(employeeUpdateRetryPolicy.retryAfterConflict(1)).willReturn(true);
+		given(entityManager.find(eq(Employee.class), eq(employee.getId()), anyMap())).willReturn(currentEmployee);
+		given(employeeRepository.save(argThat(attempt -> attempt.getVersion() == 5L)))
+				.willAnswer(invocation -> invocation.getArgument(0));
+		
+		//when - action or behavior that we are going to test
+		Employee updatedEmployee = employeeService.updateEmployee(employee);
+		
+		//then - verify the result -->our fields on top of the version that won
+		assertThat(updatedEmployee.getVersion()).isEqualTo(5L);
+		assertThat(updatedEmployee.getFirstName()).isEqualTo("Ram");
+		assertThat(updatedEmployee.getEmail()).isEqualTo(employee.getEmail());
+		verify(employeeSearchIndex).put(updatedEmployee);
+	}
+	
+	@DisplayName("JUnit test for updating employee under an If-Match precondition")
+	@Test
+	public void givenStaleVersion_whenUpdateEmployeeIfUnchanged_thenNotRetried() {
+
+		//given - precondition or setup
+		given(employeeRepository.save(employee))
+				.willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employee.getId()));
+		
+		//when - action or behavior that we are going to test
+		org.junit.jupiter.api.Assertions.assertThrows(ConcurrentUpdateException.class, () ->
+			employeeService.updateEmployeeIfUnchanged(employee));
+		
+		//then - verify the result
+		verify(employeeRepository, times(1)).save(any(Employee.class));
+		verify(employeeUpdateRetryPolicy, never()).retryAfterConflict(anyInt());
+	}
+	
+	@DisplayName("JUnit test for patching employee")
+	@Test
+	public void givenEmployeeChanges_whenPatchEmployee_thenSingleUpdate() {
+
+		//given - precondition or setup
+		Employee changes = Employee.builder().email("ram@gmail.com").build();
+		given(employeeRepository.patchById(1L, null, null, "ram@gmail.com")).willReturn(1);
+		
+		//when - action or behavior that we are going to test
+		boolean patched = employeeService.patchEmployee(1L, changes);
+		
+		//then - verify the result
+		assertThat(patched).isTrue();
+		verify(employeeRepository, never()).findById(any(Long.class));
+		verify(employeeEmailFilter).add("ram@gmail.com");
+	}
+	
+	@DisplayName("JUnit test for patching employee negative scenario")
+	@Test
+	public void givenUnknownEmployeeId_whenPatchEmployee_thenReturnFalse() {
+
+		//given - precondition or setup
+		Employee changes = Employee.builder().firstName("Ram").build();
+		given(employeeRepository.patchById(1L, "Ram", null, null)).willReturn(0);
+		
+		//when - action or behavior that we are going to test
+		boolean patched = employeeService.patchEmployee(1L, changes);
+		
+		//then - verify the result
+		assertThat(patched).isFalse();
+	}
+	
+	@DisplayName("JUnit test for patching employee without changes")
+	@Test
+	public void givenNoChanges_whenPatchEmployee_thenThrowsBadRequest() {
+
+		//given - precondition or setup
+		Employee changes = new Employee();
+		
+		//when - action or behavior that we are going to test
+		org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class, () ->
+		employeeService.patchEmployee(1L, changes));
+		
+		//then - verify the result
+		verify(employeeRepository, never()).patchById(anyLong(), any(), any(), any());
+	}
+	
 	@DisplayName("JUnit test for deleting employee")
 	@Test
 	public void givenEmployeeId_whenDeleteEmployee_then() {
 
-		//given - precondition or setup --> willDoNothing is used when return type is void
-		willDoNothing().given(employeeRepository).deleteById(employee.getId());
+		//given - precondition or setup
+		given(employeeRepository.removeById(employee.getId())).willReturn(1);
+		
+		//when - action or behavior that we are going to test
+		boolean deleted = employeeService.deleteEmployee(employee.getId());
+		
+		//then - verify the result -->a single delete statement, no findById before it
+		assertThat(deleted).isTrue();
+		verify(employeeRepository, times(1)).removeById(employee.getId());
+		verify(employeeRepository, never()).findById(any(Long.class));
+		verify(employeeEmailFilter).remove(1);
+
+	}
+	
+	@DisplayName("JUnit test for deleting employee that does not exist")
+	@Test
+	public void givenMissingEmployeeId_whenDeleteEmployee_thenReturnFalse() {
+
+		//given - precondition or setup
+		given(employeeRepository.removeById(employee.getId())).willReturn(0);
 		
 		//when - action or behavior that we are going to test
-		employeeService.deleteEmployee(employee.getId());
+		boolean deleted = employeeService.deleteEmployee(employee.getId());
 		
-		//then - verify the result -->below method should be called once, we need to check this as 
-		//method returns void
-		verify(employeeRepository, times(1)).deleteById(employee.getId());
+		//then - verify the result
+		assertThat(deleted).isFalse();
+		verify(employeeSearchIndex, never()).remove(any());
+	}
+	
+	@DisplayName("JUnit test for deleting employee at a version it no longer has")
+	@Test
+	public void givenStaleVersion_whenDeleteEmployeeAtVersion_thenReturnFalse() {
 
+		//given - precondition or setup
+		given(employeeRepository.removeByIdAndVersion(employee.getId(), 3L)).willReturn(0);
+		
+		//when - action or behavior that we are going to test
+		boolean deleted = employeeService.deleteEmployee(employee.getId(), 3L);
+		
+		//then - verify the result
+		assertThat(deleted).isFalse();
+		verify(employeeRepository, never()).removeById(any(Long.class));
+		verify(employeeSearchIndex, never()).remove(any());
+	}
+	
+	@DisplayName("JUnit test for deleting employees by ids")
+	@Test
+	public void givenEmployeeIds_whenDeleteEmployees_thenSingleDelete() {
+
+		//given - precondition or setup
+		given(employeeRepository.removeByIdIn(List.of(1L, 2L))).willReturn(2);
+		
+		//when - action or behavior that we are going to test
+		int deleted = employeeService.deleteEmployees(List.of(1L, 2L));
+		
+		//then - verify the result
+		assertThat(deleted).isEqualTo(2);
+		verify(employeeEmailFilter).remove(2);
 	}
 }
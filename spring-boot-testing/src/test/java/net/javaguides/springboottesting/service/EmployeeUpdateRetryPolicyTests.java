@@ -0,0 +1,64 @@
+package net.javaguides.springboottesting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.springboottesting.service.impl.EmployeeUpdateRetryPolicy;
+
+public class EmployeeUpdateRetryPolicyTests {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private EmployeeUpdateRetryPolicy employeeUpdateRetryPolicy;
+
+	@BeforeEach
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		employeeUpdateRetryPolicy = new EmployeeUpdateRetryPolicy(meterRegistry, 3, 1, 2);
+	}
+
+	@AfterEach
+	public void cleanup() {
+		//a failed test must not leave the flag for the next one
+		Thread.interrupted();
+	}
+
+	@DisplayName("JUnit test for retry policy running out of attempts")
+	@Test
+	public void givenThreeAttempts_whenEveryAttemptConflicts_thenTwoRetriesAndThreeConflicts() {
+
+		//when - action or behavior that we are going to test
+		boolean afterFirst = employeeUpdateRetryPolicy.retryAfterConflict(1);
+		boolean afterSecond = employeeUpdateRetryPolicy.retryAfterConflict(2);
+		boolean afterThird = employeeUpdateRetryPolicy.retryAfterConflict(3);
+
+		//then - verify the result
+		assertThat(afterFirst).isTrue();
+		assertThat(afterSecond).isTrue();
+		assertThat(afterThird).isFalse();
+		assertThat(meterRegistry.get("employees.update.conflicts").counter().count()).isEqualTo(3.0);
+		assertThat(meterRegistry.get("employees.update.retries").counter().count()).isEqualTo(2.0);
+	}
+
+	@DisplayName("JUnit test for retry policy on an interrupted thread")
+	@Test
+	public void givenInterruptedThread_whenConflict_thenNoRetry() {
+
+		//given - precondition or setup
+		employeeUpdateRetryPolicy = new EmployeeUpdateRetryPolicy(meterRegistry, 3, 1_000, 1_000);
+		Thread.currentThread().interrupt();
+
+		//when - action or behavior that we are going to test
+		boolean retry = employeeUpdateRetryPolicy.retryAfterConflict(1);
+
+		//then - verify the result
+		assertThat(retry).isFalse();
+		assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		assertThat(meterRegistry.get("employees.update.retries").counter().count()).isZero();
+	}
+}
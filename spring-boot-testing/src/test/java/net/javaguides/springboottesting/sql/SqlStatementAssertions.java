@@ -0,0 +1,91 @@
+package net.javaguides.springboottesting.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.core.task.TaskDecorator;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/**
+ * Statement budgets for tests. Import {@link SqlStatementCountConfig}, call {@link #reset()} right before the
+ * operation under test and assert what it cost afterwards, e.g. {@code assertSelectCount(1)}.
+ *
+ * Statements are counted per thread, so MockMvc requests count on the test thread, and so do the calls they hand
+ * to the employee executor (see {@link SqlStatementCountConfig}). A JDBC batch counts once.
+ * Id allocation on the employees_seq table is left out, it only runs once per allocationSize rows.
+ */
+public final class SqlStatementAssertions {
+
+	private static final String SEQUENCE_TABLE = "employees_seq";
+
+	private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+	static final QueryExecutionListener LISTENER = new QueryExecutionListener() {
+
+		@Override
+		public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		}
+
+		@Override
+		public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			queryInfoList.stream()
+					.map(QueryInfo::getQuery)
+					.filter(sql -> !sql.toLowerCase(Locale.ROOT).contains(SEQUENCE_TABLE))
+					.forEach(statements.get()::add);
+		}
+	};
+
+	static final TaskDecorator TASK_DECORATOR = task -> {
+		List<String> submitting = statements.get();
+		return () -> {
+			List<String> own = statements.get();
+			statements.set(submitting);
+			try {
+				task.run();
+			} finally {
+				statements.set(own);
+			}
+		};
+	};
+
+	private SqlStatementAssertions() {
+	}
+
+	public static void reset() {
+		statements.get().clear();
+	}
+
+	public static void assertSelectCount(int expected) {
+		assertCount(QueryType.SELECT, expected);
+	}
+
+	public static void assertInsertCount(int expected) {
+		assertCount(QueryType.INSERT, expected);
+	}
+
+	public static void assertUpdateCount(int expected) {
+		assertCount(QueryType.UPDATE, expected);
+	}
+
+	public static void assertDeleteCount(int expected) {
+		assertCount(QueryType.DELETE, expected);
+	}
+
+	public static void assertStatementCount(int expected) {
+		assertThat(statements.get()).as("SQL statements").hasSize(expected);
+	}
+
+	private static void assertCount(QueryType type, int expected) {
+		List<String> executed = statements.get();
+		long count = executed.stream().filter(sql -> QueryUtils.getQueryType(sql) == type).count();
+		assertThat(count).as("%s statements, executed: %s", type, executed).isEqualTo(expected);
+	}
+}
@@ -0,0 +1,36 @@
+package net.javaguides.springboottesting.sql;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskDecorator;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+//wraps every DataSource of the test context so SqlStatementAssertions sees its statements, including the ones
+//run for the test thread on the employee executor
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlStatementCountConfig {
+
+	@Bean
+	public static BeanPostProcessor sqlStatementCountPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource))
+					return bean;
+				return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+						.listener(SqlStatementAssertions.LISTENER)
+						.build();
+			}
+		};
+	}
+
+	@Bean
+	public TaskDecorator sqlStatementAssertionsTaskDecorator() {
+		return SqlStatementAssertions.TASK_DECORATOR;
+	}
+}